@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.opentext.idol.types.responses.GetChildrenResponseData;
+import com.opentext.idol.types.responses.GetStatusResponseData;
+import com.opentext.idol.types.responses.GetVersionResponseData;
+
+import java.util.Set;
+
+/**
+ * {@link AciService} which answers GetVersion, GetStatus and GetChildren from memory, so that benchmarks measure the
+ * validation logic rather than the network.
+ */
+class InMemoryAciService implements AciService {
+
+    private final GetVersionResponseData getVersion = new GetVersionResponseData();
+    private final GetStatusResponseData getStatus = new GetStatusResponseData();
+    private final GetChildrenResponseData getChildren = new GetChildrenResponseData();
+
+    InMemoryAciService(final String productTypeCsv, final int port, final Integer indexPort, final int servicePort) {
+        getVersion.setProducttypecsv(productTypeCsv);
+
+        getStatus.setAciport(port);
+        getStatus.setIndexport(indexPort);
+        getStatus.setServiceport(servicePort);
+
+        getChildren.setPort(port);
+        getChildren.setServiceport(servicePort);
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        throw new UnsupportedOperationException("Server details are required");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final String action = action(parameters);
+
+        // the processors are never called, so the response objects are returned directly
+        if ("getversion".equalsIgnoreCase(action)) {
+            return (T) getVersion;
+        } else if ("getstatus".equalsIgnoreCase(action)) {
+            return (T) getStatus;
+        } else if ("getchildren".equalsIgnoreCase(action)) {
+            return (T) getChildren;
+        }
+
+        throw new AciServiceException("Unsupported action " + action);
+    }
+
+    private static String action(final Set<? extends ActionParameter<?>> parameters) {
+        for (final ActionParameter<?> parameter : parameters) {
+            if ("action".equalsIgnoreCase(parameter.getName())) {
+                return String.valueOf(parameter.getValue());
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks serializing and deserializing the IDOL configuration components with Jackson.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonRoundTripBenchmark {
+
+    private ObjectWriter serverConfigWriter;
+    private ObjectReader serverConfigReader;
+    private ObjectWriter distributedConfigWriter;
+    private ObjectReader distributedConfigReader;
+    private ObjectWriter communityAuthenticationWriter;
+    private ObjectReader communityAuthenticationReader;
+
+    private ServerConfig serverConfig;
+    private DistributedConfig distributedConfig;
+    private CommunityAuthentication communityAuthentication;
+
+    @Setup
+    public void setUp() {
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        serverConfigWriter = objectMapper.writerFor(ServerConfig.class);
+        serverConfigReader = objectMapper.readerFor(ServerConfig.class);
+        distributedConfigWriter = objectMapper.writerFor(DistributedConfig.class);
+        distributedConfigReader = objectMapper.readerFor(DistributedConfig.class);
+        communityAuthenticationWriter = objectMapper.writerFor(CommunityAuthentication.class);
+        communityAuthenticationReader = objectMapper.readerFor(CommunityAuthentication.class);
+
+        serverConfig = ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host("localhost")
+                .port(9000)
+                .serviceProtocol(AciServerDetails.TransportProtocol.HTTP)
+                .servicePort(9002)
+                .productType(EnumSet.of(ProductType.AXE))
+                .indexErrorMessage("IndexError")
+                .build();
+
+        distributedConfig = DistributedConfig.builder()
+                .distributed(true)
+                .standard(serverConfig)
+                .dih(serverConfig.toBuilder().port(10000).servicePort(10002).productType(EnumSet.of(ProductType.DIH)).build())
+                .dah(serverConfig.toBuilder().port(11000).servicePort(11002).productType(EnumSet.of(ProductType.DAH)).build())
+                .build();
+
+        communityAuthentication = CommunityAuthentication.builder()
+                .community(serverConfig.toBuilder().port(9030).servicePort(9032).productType(EnumSet.of(ProductType.UASERVER)).build())
+                .method("autonomy")
+                .build();
+    }
+
+    @Benchmark
+    public ServerConfig serverConfigRoundTrip() throws IOException {
+        return serverConfigReader.readValue(serverConfigWriter.writeValueAsBytes(serverConfig));
+    }
+
+    @Benchmark
+    public DistributedConfig distributedConfigRoundTrip() throws IOException {
+        return distributedConfigReader.readValue(distributedConfigWriter.writeValueAsBytes(distributedConfig));
+    }
+
+    @Benchmark
+    public CommunityAuthentication communityAuthenticationRoundTrip() throws IOException {
+        return communityAuthenticationReader.readValue(communityAuthenticationWriter.writeValueAsBytes(communityAuthentication));
+    }
+}
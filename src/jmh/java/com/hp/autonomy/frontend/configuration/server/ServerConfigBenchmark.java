@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.opentext.idol.types.marshalling.ProcessorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for the {@link ServerConfig} conversions, the product type check and end-to-end validation against an
+ * in-memory ACI server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerConfigBenchmark {
+
+    private static final String INDEX_ERROR_MESSAGE = "IndexError";
+
+    private ServerConfig enumConfig;
+    private ServerConfig regexConfig;
+    private ServerConfig indexingConfig;
+    private Collection<String> serverProductTypes;
+
+    private InMemoryAciService aciService;
+    private InMemoryAciService indexingAciService;
+    private IndexingService indexingService;
+    private ProcessorFactory processorFactory;
+
+    @Setup
+    public void setUp() {
+        enumConfig = ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host("localhost")
+                .port(9000)
+                .indexProtocol(ServerDetails.TransportProtocol.HTTP)
+                .indexPort(9001)
+                .serviceProtocol(AciServerDetails.TransportProtocol.HTTP)
+                .servicePort(9002)
+                .productType(EnumSet.of(ProductType.AXE, ProductType.QMS, ProductType.VIEW))
+                .build();
+
+        regexConfig = enumConfig.toBuilder()
+                .productType(null)
+                .productTypeRegex(Pattern.compile(".*?CONNECTOR"))
+                .build();
+
+        indexingConfig = enumConfig.toBuilder()
+                .indexErrorMessage(INDEX_ERROR_MESSAGE)
+                .build();
+
+        serverProductTypes = new HashSet<>(Arrays.asList("DAH", "DIH", "QMS", "FILESYSTEMCONNECTOR"));
+
+        aciService = new InMemoryAciService("QMS", 9000, null, 9002);
+        indexingAciService = new InMemoryAciService("AXE", 9000, 9001, 9002);
+
+        indexingService = (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{IndexingService.class}, (proxy, method, args) -> {
+            if ("executeCommand".equals(method.getName())) {
+                throw new IndexingException(INDEX_ERROR_MESSAGE);
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+
+        // the in-memory ACI service never uses the processors it is given
+        processorFactory = (ProcessorFactory) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ProcessorFactory.class}, (proxy, method, args) -> null);
+    }
+
+    @Benchmark
+    public AciServerDetails toAciServerDetails() {
+        return enumConfig.toAciServerDetails();
+    }
+
+    @Benchmark
+    public ServerDetails toServerDetails() {
+        return enumConfig.toServerDetails();
+    }
+
+    @Benchmark
+    public boolean testServerVersionWithProductTypes() {
+        return enumConfig.testServerVersion(serverProductTypes);
+    }
+
+    @Benchmark
+    public boolean testServerVersionWithProductTypeRegex() {
+        return regexConfig.testServerVersion(serverProductTypes);
+    }
+
+    @Benchmark
+    public ValidationResult<?> validate() {
+        return enumConfig.validate(aciService, indexingService, processorFactory);
+    }
+
+    @Benchmark
+    public ValidationResult<?> validateWithIndexPort() {
+        return indexingConfig.validate(indexingAciService, indexingService, processorFactory);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Utilities for inspecting ACI requests
+ */
+final class AciRequests {
+
+    private static final String ACTION_PARAMETER = "action";
+
+    private AciRequests() {
+    }
+
+    /**
+     * @param parameters The parameters of an ACI request
+     * @return The name of the action in lower case, or null if there is no action parameter
+     */
+    static String action(final Set<? extends ActionParameter<?>> parameters) {
+        for (final ActionParameter<?> parameter : parameters) {
+            if (ACTION_PARAMETER.equalsIgnoreCase(parameter.getName())) {
+                return String.valueOf(parameter.getValue()).toLowerCase(Locale.ENGLISH);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param parameters The parameters of an ACI request
+     * @return The parameters as a string which does not depend on their order or the case of their names. Every name
+     * and value is prefixed with its length, so different parameters never produce the same string, and repeated
+     * parameters are all kept.
+     */
+    static String canonicalParameters(final Set<? extends ActionParameter<?>> parameters) {
+        final List<String> encoded = new ArrayList<>(parameters.size());
+
+        for (final ActionParameter<?> parameter : parameters) {
+            encoded.add(lengthPrefixed(parameter.getName().toLowerCase(Locale.ENGLISH)) + lengthPrefixed(String.valueOf(parameter.getValue())));
+        }
+
+        Collections.sort(encoded);
+        return String.join("", encoded);
+    }
+
+    private static String lengthPrefixed(final String value) {
+        return value.length() + ":" + value;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.Set;
+
+/**
+ * {@link AciService} which answers repeated idempotent requests from a {@link ResponseCache}.
+ * <p>
+ * Pass this to an {@link AbstractConfigurableAciService} to cache the responses of a configured service. Cached
+ * responses are shared between callers, so must not be modified. The response type is part of the key, so only
+ * requests whose processor has a known {@link ResponseTypes response type} are cached; other requests, and requests
+ * without server details, are passed straight through.
+ */
+public class CachingAciService implements AciService {
+
+    private final AciService aciService;
+    private final ResponseCache responseCache;
+    private final ResponseTypes responseTypes;
+
+    /**
+     * Creates a service which only caches requests whose processor is a {@link TypedProcessor}
+     *
+     * @param aciService    The {@link AciService} used to send requests
+     * @param responseCache The cache of responses
+     */
+    public CachingAciService(final AciService aciService, final ResponseCache responseCache) {
+        this(aciService, responseCache, new ResponseTypes());
+    }
+
+    /**
+     * @param aciService    The {@link AciService} used to send requests
+     * @param responseCache The cache of responses
+     * @param responseTypes The response types of the processors whose requests may be cached
+     */
+    public CachingAciService(final AciService aciService, final ResponseCache responseCache, final ResponseTypes responseTypes) {
+        this.aciService = aciService;
+        this.responseCache = responseCache;
+        this.responseTypes = responseTypes;
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return aciService.executeAction(parameters, processor);
+    }
+
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final Class<T> responseType = responseTypes.responseType(processor);
+
+        if (serverDetails == null || responseType == null) {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        }
+
+        return responseCache.get(serverDetails, parameters, responseType, () -> aciService.executeAction(serverDetails, parameters, processor));
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the recent calls to a single server and stops calls being sent while the server is unhealthy.
+ * <p>
+ * While CLOSED, the outcome of each call is recorded in a window of the most recent calls. If enough calls have been
+ * recorded and the failure rate or slow call rate reaches its threshold the circuit OPENs, and calls are rejected
+ * without contacting the server. Once the open duration has passed the circuit becomes HALF_OPEN and a limited number
+ * of probe calls are allowed through: a failed probe opens the circuit again, and if all the probes complete without
+ * exceeding the slow call rate the circuit closes. The outcome of a call which started before the latest change of
+ * state is ignored, so a slow call left over from a closed circuit cannot count as a probe.
+ *
+ * @see CircuitBreakers
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte SUCCESS = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILURE = 2;
+
+    private final String server;
+    private final CircuitBreakerSettings settings;
+    private final CircuitBreakerListener listener;
+    private final long slowCallNanos;
+    private final LongSupplier nanoClock;
+
+    // guarded by this
+    private final byte[] window;
+    private int windowCount;
+    private int windowNext;
+    private State state = State.CLOSED;
+    // incremented on every change of state
+    private long generation;
+    private long openUntil;
+    private int probesStarted;
+    private int probesCompleted;
+    private int slowProbes;
+
+    CircuitBreaker(final String server, final CircuitBreakerSettings settings, final CircuitBreakerListener listener, final LongSupplier nanoClock) {
+        this.server = server;
+        this.settings = settings;
+        this.listener = listener;
+        this.nanoClock = nanoClock;
+
+        slowCallNanos = settings.getSlowCallDuration().toNanos();
+        window = new byte[settings.getWindowSize()];
+    }
+
+    /**
+     * @return The current state of the circuit
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Makes a call through the circuit breaker
+     *
+     * @param call      Makes the call
+     * @param isFailure Decides whether an exception thrown by the call shows that the server is unhealthy
+     * @param rejection Creates the exception thrown if the circuit is open
+     * @param <T>       The type of the response
+     * @return The response
+     */
+    <T> T execute(final Supplier<T> call, final Predicate<RuntimeException> isFailure, final Supplier<? extends RuntimeException> rejection) {
+        final long callGeneration = tryAcquire();
+
+        if (callGeneration < 0) {
+            throw rejection.get();
+        }
+
+        final long start = nanoClock.getAsLong();
+        final T response;
+
+        try {
+            response = call.get();
+        } catch (final RuntimeException e) {
+            onComplete(callGeneration, isFailure.test(e) ? FAILURE : outcome(start));
+            throw e;
+        } catch (final Error e) {
+            onComplete(callGeneration, FAILURE);
+            throw e;
+        }
+
+        onComplete(callGeneration, outcome(start));
+        return response;
+    }
+
+    private byte outcome(final long start) {
+        return nanoClock.getAsLong() - start >= slowCallNanos ? SLOW : SUCCESS;
+    }
+
+    // returns the generation of the call, or -1 if it is rejected
+    private long tryAcquire() {
+        final State previous;
+        final State current;
+        final long callGeneration;
+
+        synchronized (this) {
+            previous = state;
+
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openUntil < 0) {
+                    return -1;
+                }
+
+                state = State.HALF_OPEN;
+                generation++;
+                probesStarted = 0;
+                probesCompleted = 0;
+                slowProbes = 0;
+            }
+
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= settings.getHalfOpenCalls()) {
+                    return -1;
+                }
+
+                probesStarted++;
+            }
+
+            current = state;
+            callGeneration = generation;
+        }
+
+        notifyListener(previous, current);
+        return callGeneration;
+    }
+
+    private void onComplete(final long callGeneration, final byte outcome) {
+        final State previous;
+        final State current;
+
+        synchronized (this) {
+            previous = state;
+
+            if (callGeneration != generation) {
+                // the call started before the state changed
+                return;
+            }
+
+            if (state == State.HALF_OPEN) {
+                probesCompleted++;
+
+                if (outcome == SLOW) {
+                    slowProbes++;
+                }
+
+                if (outcome == FAILURE) {
+                    open();
+                } else if (probesCompleted >= settings.getHalfOpenCalls()) {
+                    if (exceeds(slowProbes, settings.getSlowCallRateThreshold(), probesCompleted)) {
+                        open();
+                    } else {
+                        close();
+                    }
+                }
+            } else if (state == State.CLOSED) {
+                record(outcome);
+
+                if (windowCount >= settings.getMinimumCalls() && exceedsThresholds()) {
+                    open();
+                }
+            }
+
+            current = state;
+        }
+
+        notifyListener(previous, current);
+    }
+
+    private void record(final byte outcome) {
+        window[windowNext] = outcome;
+        windowNext = (windowNext + 1) % window.length;
+        windowCount = Math.min(windowCount + 1, window.length);
+    }
+
+    private boolean exceedsThresholds() {
+        int failures = 0;
+        int slow = 0;
+
+        for (int i = 0; i < windowCount; i++) {
+            if (window[i] == FAILURE) {
+                failures++;
+            } else if (window[i] == SLOW) {
+                slow++;
+            }
+        }
+
+        return exceeds(failures, settings.getFailureRateThreshold(), windowCount)
+                || exceeds(slow, settings.getSlowCallRateThreshold(), windowCount);
+    }
+
+    private static boolean exceeds(final int count, final double threshold, final int total) {
+        return count > 0 && count >= threshold * total;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        generation++;
+        openUntil = nanoClock.getAsLong() + settings.getOpenDuration().toNanos();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        generation++;
+        windowCount = 0;
+        windowNext = 0;
+    }
+
+    private void notifyListener(final State previous, final State current) {
+        if (previous != current && listener != null) {
+            listener.onStateChange(server, previous, current);
+        }
+    }
+}
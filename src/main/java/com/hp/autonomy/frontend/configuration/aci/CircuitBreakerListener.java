@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+/**
+ * Notified when the circuit for a server changes state. Called on the thread making the request which caused the
+ * change, so should not block.
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+    /**
+     * @param server   The server, as host:port
+     * @param previous The previous state of the circuit
+     * @param current  The new state of the circuit
+     */
+    void onStateChange(String server, CircuitBreaker.State previous, CircuitBreaker.State current);
+}
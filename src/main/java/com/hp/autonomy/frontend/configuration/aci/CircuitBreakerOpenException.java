@@ -0,0 +1,29 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+
+/**
+ * Thrown instead of sending an ACI request to a server whose circuit is open
+ */
+public class CircuitBreakerOpenException extends AciServiceException {
+    private static final long serialVersionUID = 1L;
+
+    CircuitBreakerOpenException(final String server) {
+        super("Circuit breaker for " + server + " is open");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Thresholds used by {@link CircuitBreakers} to decide when a server is unhealthy
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class CircuitBreakerSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final CircuitBreakerSettings DEFAULT = builder().build();
+
+    /**
+     * @return The number of most recent calls to each server used to calculate the failure and slow call rates
+     */
+    @Builder.Default
+    private final int windowSize = 20;
+
+    /**
+     * @return The number of calls which must be recorded before the circuit can open
+     */
+    @Builder.Default
+    private final int minimumCalls = 10;
+
+    /**
+     * @return The fraction of failed calls, between 0 and 1, at or above which the circuit opens
+     */
+    @Builder.Default
+    private final double failureRateThreshold = 0.5;
+
+    /**
+     * @return The fraction of slow calls, between 0 and 1, at or above which the circuit opens
+     */
+    @Builder.Default
+    private final double slowCallRateThreshold = 1;
+
+    /**
+     * @return Calls taking at least this long are counted as slow
+     */
+    @Builder.Default
+    private final Duration slowCallDuration = Duration.ofSeconds(10);
+
+    /**
+     * @return How long the circuit stays open before allowing probe calls through
+     */
+    @Builder.Default
+    private final Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * @return The number of probe calls allowed while half open. The circuit closes if they all succeed without
+     * exceeding the slow call rate.
+     */
+    @Builder.Default
+    private final int halfOpenCalls = 3;
+}
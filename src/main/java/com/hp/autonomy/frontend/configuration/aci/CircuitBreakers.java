@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a {@link CircuitBreaker} for each server, identified by host and port. A single instance is normally shared by
+ * the {@link CircuitBreakingAciService} and {@link CircuitBreakingIndexingService} of an application, so that every
+ * caller sees the same state for a server.
+ */
+public class CircuitBreakers {
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final CircuitBreakerSettings settings;
+    private final CircuitBreakerListener listener;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param settings The thresholds used for every server
+     * @param listener Notified of state changes, or null
+     */
+    public CircuitBreakers(final CircuitBreakerSettings settings, final CircuitBreakerListener listener) {
+        this(settings, listener, System::nanoTime);
+    }
+
+    CircuitBreakers(final CircuitBreakerSettings settings, final CircuitBreakerListener listener, final LongSupplier nanoClock) {
+        this.settings = settings;
+        this.listener = listener;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param host The host of the server
+     * @param port The port of the server
+     * @return The circuit breaker for the server
+     */
+    public CircuitBreaker get(final String host, final int port) {
+        return breakers.computeIfAbsent(host + ':' + port, server -> new CircuitBreaker(server, settings, listener, nanoClock));
+    }
+
+    /**
+     * @return The current state of every server which has been called, keyed by host:port
+     */
+    public Map<String, CircuitBreaker.State> getStates() {
+        final Map<String, CircuitBreaker.State> states = new HashMap<>();
+        breakers.forEach((server, breaker) -> states.put(server, breaker.getState()));
+        return Collections.unmodifiableMap(states);
+    }
+}
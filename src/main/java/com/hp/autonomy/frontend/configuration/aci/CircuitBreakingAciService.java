@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * {@link AciService} which sends requests through the {@link CircuitBreaker} of the target server. Requests to a server
+ * whose circuit is open fail immediately with a {@link CircuitBreakerOpenException}.
+ * <p>
+ * Pass this to an {@link AbstractConfigurableAciService} to protect a configured service. Only an exception caused by
+ * an {@link IOException} counts as a failure, as in {@link CircuitBreakingIndexingService} and
+ * {@link UnreachableServerCache}; any other exception, such as an {@link AciErrorException} or a response which could
+ * not be processed, shows that the server is responding. Requests without server details cannot be attributed to a
+ * server, so are passed straight through.
+ */
+public class CircuitBreakingAciService implements AciService {
+
+    private final AciService aciService;
+    private final CircuitBreakers circuitBreakers;
+
+    /**
+     * @param aciService      The {@link AciService} used to send requests
+     * @param circuitBreakers The circuit breakers for each server
+     */
+    public CircuitBreakingAciService(final AciService aciService, final CircuitBreakers circuitBreakers) {
+        this.aciService = aciService;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return aciService.executeAction(parameters, processor);
+    }
+
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final String host = serverDetails.getHost();
+        final int port = serverDetails.getPort();
+
+        return circuitBreakers.get(host, port).execute(
+                () -> aciService.executeAction(serverDetails, parameters, processor),
+                CircuitBreakingAciService::isFailure,
+                () -> new CircuitBreakerOpenException(host + ':' + port)
+        );
+    }
+
+    private static boolean isFailure(final RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
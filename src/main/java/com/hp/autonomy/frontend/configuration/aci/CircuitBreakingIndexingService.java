@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+
+import java.io.IOException;
+
+/**
+ * {@link IndexingService} which sends commands through the {@link CircuitBreaker} of the target index port. Commands
+ * to a server whose circuit is open fail immediately with an {@link IndexingException} caused by a
+ * {@link CircuitBreakerOpenException}.
+ * <p>
+ * Pass this to an {@link AbstractConfigurableIndexingService} to protect a configured service. Only an
+ * {@link IndexingException} caused by an {@link IOException} counts as a failure; any other exception is an error
+ * reported by a responding server, as in {@link RetryingIndexingService}. Commands without server details are passed
+ * straight through.
+ */
+public class CircuitBreakingIndexingService implements IndexingService {
+
+    private final IndexingService indexingService;
+    private final CircuitBreakers circuitBreakers;
+
+    /**
+     * @param indexingService The {@link IndexingService} used to send commands
+     * @param circuitBreakers The circuit breakers for each server
+     */
+    public CircuitBreakingIndexingService(final IndexingService indexingService, final CircuitBreakers circuitBreakers) {
+        this.indexingService = indexingService;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        return indexingService.executeCommand(command);
+    }
+
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        final String host = serverDetails.getHost();
+        final int port = serverDetails.getPort();
+
+        return circuitBreakers.get(host, port).execute(
+                () -> indexingService.executeCommand(serverDetails, command),
+                CircuitBreakingIndexingService::isFailure,
+                () -> {
+                    final CircuitBreakerOpenException cause = new CircuitBreakerOpenException(host + ':' + port);
+                    return new IndexingException(cause.getMessage(), cause);
+                }
+        );
+    }
+
+    private static boolean isFailure(final RuntimeException e) {
+        return e instanceof IndexingException && e.getCause() instanceof IOException;
+    }
+}
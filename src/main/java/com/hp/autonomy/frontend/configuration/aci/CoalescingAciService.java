@@ -0,0 +1,238 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link AciService} which shares one backend call between identical concurrent requests.
+ * <p>
+ * Pass this to an {@link AbstractConfigurableAciService} to coalesce requests to a configured service. Requests are
+ * identical if they have the same server details, parameters and response type, so only requests whose processor has a
+ * known {@link ResponseTypes response type} are coalesced; other requests are passed straight through. The shared call runs
+ * on an {@link Executor}, and every caller waits for it separately: a caller which times out or is interrupted stops
+ * waiting without affecting the others, and the call is only cancelled once every caller has stopped waiting. Nothing
+ * is kept once the call completes, so a later request always sends a new call. Results are shared between callers, so
+ * must not be modified.
+ */
+public class CoalescingAciService implements AciService {
+
+    private final AciService aciService;
+    private final Set<String> actions;
+    private final Duration maxWait;
+    private final Executor executor;
+    private final ResponseTypes responseTypes;
+
+    private final ConcurrentMap<String, Call> calls = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong backendCalls = new AtomicLong();
+
+    /**
+     * Creates a service which only coalesces requests whose processor is a {@link TypedProcessor}
+     *
+     * @param aciService The {@link AciService} used to send requests
+     * @param actions    The actions which may be coalesced. These should have no side effects.
+     * @param maxWait    The maximum time each caller waits for a response, or null to wait indefinitely
+     * @param executor   The {@link Executor} used to run shared calls
+     */
+    public CoalescingAciService(final AciService aciService, final Set<String> actions, final Duration maxWait, final Executor executor) {
+        this(aciService, actions, maxWait, executor, new ResponseTypes());
+    }
+
+    /**
+     * @param aciService    The {@link AciService} used to send requests
+     * @param actions       The actions which may be coalesced. These should have no side effects.
+     * @param maxWait       The maximum time each caller waits for a response, or null to wait indefinitely
+     * @param executor      The {@link Executor} used to run shared calls
+     * @param responseTypes The response types of the processors whose requests may be coalesced
+     */
+    public CoalescingAciService(final AciService aciService, final Set<String> actions, final Duration maxWait, final Executor executor, final ResponseTypes responseTypes) {
+        this.aciService = aciService;
+        this.actions = actions.stream().map(action -> action.toLowerCase(Locale.ENGLISH)).collect(Collectors.toSet());
+        this.maxWait = maxWait;
+        this.executor = executor;
+        this.responseTypes = responseTypes;
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return aciService.executeAction(parameters, processor);
+    }
+
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final String action = AciRequests.action(parameters);
+        final Class<T> responseType = responseTypes.responseType(processor);
+
+        if (serverDetails == null || responseType == null || !actions.contains(action)) {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        }
+
+        requests.incrementAndGet();
+        final String key = key(serverDetails, parameters, responseType);
+        final long deadline = maxWait == null ? 0 : System.nanoTime() + maxWait.toNanos();
+
+        while (true) {
+            final Call call = join(key, () -> aciService.executeAction(serverDetails, parameters, processor));
+
+            try {
+                return responseType.cast(maxWait == null
+                        ? call.result.get()
+                        : call.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (final CancellationException ignored) {
+                // joined a call just as every other caller gave up on it, so start again
+            } catch (final TimeoutException e) {
+                throw new AciServiceException("Timed out waiting for " + action);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AciServiceException("Interrupted while waiting for " + action);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                leave(key, call);
+            }
+        }
+    }
+
+    /**
+     * @return The number of requests which were eligible for coalescing
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of calls sent for eligible requests
+     */
+    public long getBackendCalls() {
+        return backendCalls.get();
+    }
+
+    /**
+     * @return The number of eligible requests which shared a call with an earlier request
+     */
+    public long getCoalescedRequests() {
+        return requests.get() - backendCalls.get();
+    }
+
+    /**
+     * @return The number of calls currently in flight
+     */
+    public int getInFlightCalls() {
+        return calls.size();
+    }
+
+    private Call join(final String key, final Supplier<?> request) {
+        while (true) {
+            final Call existing = calls.get(key);
+
+            if (existing != null) {
+                if (existing.waiters.getAndUpdate(waiters -> waiters == 0 ? 0 : waiters + 1) > 0) {
+                    return existing;
+                }
+
+                // every caller has left the existing call, so it is about to be removed
+                calls.remove(key, existing);
+                continue;
+            }
+
+            final Call call = new Call();
+
+            if (calls.putIfAbsent(key, call) == null) {
+                backendCalls.incrementAndGet();
+                start(key, call, request);
+                return call;
+            }
+        }
+    }
+
+    private void start(final String key, final Call call, final Supplier<?> request) {
+        call.task = new FutureTask<>(() -> {
+            try {
+                complete(key, call, request.get(), null);
+            } catch (final RuntimeException e) {
+                complete(key, call, null, e);
+            }
+        }, null);
+
+        try {
+            executor.execute(call.task);
+        } catch (final RejectedExecutionException e) {
+            complete(key, call, null, e);
+        }
+    }
+
+    private void complete(final String key, final Call call, final Object response, final RuntimeException e) {
+        // remove the call first so that later requests do not share a result which is already complete
+        calls.remove(key, call);
+
+        if (e == null) {
+            call.result.complete(response);
+        } else {
+            call.result.completeExceptionally(e);
+        }
+    }
+
+    private void leave(final String key, final Call call) {
+        if (call.waiters.decrementAndGet() == 0 && !call.result.isDone()) {
+            calls.remove(key, call);
+            call.result.cancel(false);
+            call.task.cancel(true);
+        }
+    }
+
+    private static String key(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Class<?> responseType) {
+        return serverDetails.getProtocol() + "://" + serverDetails.getHost() + ':' + serverDetails.getPort() + '/'
+                + responseType.getName()
+                + '?' + AciRequests.canonicalParameters(parameters);
+    }
+
+    private static class Call {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile FutureTask<Void> task;
+    }
+}
@@ -17,12 +17,16 @@ package com.hp.autonomy.frontend.configuration.aci;
 import com.autonomy.aci.client.services.AciService;
 import com.autonomy.aci.client.transport.AciServerDetails;
 import com.autonomy.aci.client.util.ActionParameters;
+import com.hp.autonomy.frontend.configuration.metrics.ConfigurationMetrics;
+import com.hp.autonomy.frontend.configuration.metrics.MetricTags;
+import com.hp.autonomy.frontend.configuration.server.ProductType;
 import com.hp.autonomy.types.requests.idol.actions.status.StatusActions;
 import com.opentext.idol.types.marshalling.ProcessorFactory;
 import com.opentext.idol.types.responses.CommunityStatusResponseData;
 import com.opentext.idol.types.responses.SecurityType;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Default implementation of {@link CommunityService}.
@@ -33,17 +37,52 @@ public class CommunityServiceImpl implements CommunityService {
 
     private ProcessorFactory processorFactory;
 
+    private UnreachableServerCache unreachableServers;
+
+    private StatusSnapshotService statusSnapshots;
+
+    private SecurityTypesCache securityTypesCache;
+
+    private ConfigurationMetrics metrics = ConfigurationMetrics.NOOP;
+
     @Override
     public List<SecurityType> getSecurityTypes(final AciServerDetails community) {
+        if (securityTypesCache != null) {
+            return securityTypesCache.get(community, () -> fetchSecurityTypes(community));
+        }
+
         try {
-            final CommunityStatusResponseData responseData = aciService.executeAction(community, new ActionParameters(StatusActions.GetStatus.name()),
-                    processorFactory.getResponseDataProcessor(CommunityStatusResponseData.class));
-            return responseData.getSecurityTypes().getSecurityType();
+            return fetchSecurityTypes(community);
         } catch (final RuntimeException ignored) {
             return null;
         }
     }
 
+    private List<SecurityType> fetchSecurityTypes(final AciServerDetails community) {
+        final MetricTags tags = new MetricTags("CommunityService", ProductType.UASERVER.name(), community.getHost());
+        final long start = System.nanoTime();
+        String outcome = "FAILURE";
+
+        try {
+            final CommunityStatusResponseData responseData = statusSnapshots == null
+                    ? getStatus(community)
+                    : statusSnapshots.getStatus(community, CommunityStatusResponseData.class, () -> getStatus(community));
+            final List<SecurityType> securityTypes = responseData.getSecurityTypes().getSecurityType();
+            outcome = "SUCCESS";
+            return securityTypes;
+        } finally {
+            metrics.recordStep(tags, "GET_SECURITY_TYPES", System.nanoTime() - start);
+            metrics.recordOutcome(tags, outcome);
+        }
+    }
+
+    private CommunityStatusResponseData getStatus(final AciServerDetails community) {
+        final Supplier<CommunityStatusResponseData> request = () -> aciService.executeAction(community, new ActionParameters(StatusActions.GetStatus.name()),
+                TypedProcessor.of(CommunityStatusResponseData.class, processorFactory.getResponseDataProcessor(CommunityStatusResponseData.class)));
+
+        return unreachableServers == null ? request.get() : unreachableServers.execute(community.getHost(), community.getPort(), request);
+    }
+
     /**
      * @param aciService The {@link AciService} to use for interacting with Community
      */
@@ -57,4 +96,36 @@ public class CommunityServiceImpl implements CommunityService {
     public void setProcessorFactory(final ProcessorFactory processorFactory) {
         this.processorFactory = processorFactory;
     }
+
+    /**
+     * @param unreachableServers Used to fail fast when Community is known to be unreachable. If null, every call
+     *                           contacts Community.
+     */
+    public void setUnreachableServers(final UnreachableServerCache unreachableServers) {
+        this.unreachableServers = unreachableServers;
+    }
+
+    /**
+     * @param statusSnapshots Used to share Community GetStatus responses with other callers. If null, every call sends
+     *                        a new request.
+     */
+    public void setStatusSnapshots(final StatusSnapshotService statusSnapshots) {
+        this.statusSnapshots = statusSnapshots;
+    }
+
+    /**
+     * @param securityTypesCache Caches security types, refreshing them in the background and returning the last known
+     *                           good value if Community cannot be contacted. If null, every call contacts Community.
+     */
+    public void setSecurityTypesCache(final SecurityTypesCache securityTypesCache) {
+        this.securityTypesCache = securityTypesCache;
+    }
+
+    /**
+     * @param metrics Receives the time taken to fetch security types and whether it succeeded. Defaults to
+     *                {@link ConfigurationMetrics#NOOP}.
+     */
+    public void setMetrics(final ConfigurationMetrics metrics) {
+        this.metrics = metrics;
+    }
 }
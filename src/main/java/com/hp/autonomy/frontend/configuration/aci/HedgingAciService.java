@@ -0,0 +1,272 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ConfigurableAciService} which hedges slow read only requests across mirrored replicas.
+ * <p>
+ * Each request is sent to the next replica in turn. If the action is one of the eligible actions in the
+ * {@link HedgingSettings} and no response has arrived after the configured percentile of recent response times, the
+ * same request is also sent to the following replica; if the first replica fails sooner than that, the request is sent
+ * to the following replica straight away. The first successful response is returned and the other request is
+ * cancelled, interrupting the thread sending it. A request fails if every attempt fails, or as soon as a replica
+ * returns an {@link AciErrorException}: the replicas are mirrors, so another would reject the request too.
+ * <p>
+ * Other actions, and requests given explicit {@link AciServerDetails}, are sent once on the calling thread.
+ */
+public class HedgingAciService extends AbstractConfigurableAciService {
+
+    private final List<AciServerDetails> replicas;
+    private final Set<String> eligibleActions;
+    private final HedgingSettings settings;
+    private final Executor executor;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final AtomicLong eligibleRequests = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    // guarded by samples
+    private final long[] samples;
+    private int sampleCount;
+    private int sampleNext;
+    private int samplesSinceUpdate;
+
+    private volatile long hedgeDelay;
+
+    /**
+     * @param aciService The {@link AciService} used to send requests
+     * @param replicas   The mirrored servers; at least two are needed for hedging
+     * @param settings   Which requests to hedge and when
+     * @param executor   Runs eligible requests, so that the calling thread can wait for whichever completes first.
+     *                   It needs at least two threads for each concurrent eligible request.
+     */
+    public HedgingAciService(
+            final AciService aciService,
+            final List<ServerConfig> replicas,
+            final HedgingSettings settings,
+            final Executor executor
+    ) {
+        super(aciService);
+
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+
+        this.replicas = replicas.stream().map(ServerConfig::toAciServerDetails).collect(Collectors.toList());
+        this.settings = settings;
+        this.executor = executor;
+
+        eligibleActions = settings.getEligibleActions().stream()
+                .map(action -> action.toLowerCase(Locale.ENGLISH))
+                .collect(Collectors.toSet());
+        samples = new long[settings.getSampleSize()];
+        hedgeDelay = settings.getInitialDelay().toNanos();
+    }
+
+    /**
+     * @return The replica the next request will be sent to first
+     */
+    @Override
+    public AciServerDetails getServerDetails() {
+        return replicas.get(Math.floorMod(nextReplica.get(), replicas.size()));
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final int index = nextReplica.getAndIncrement();
+        final AciServerDetails primary = replicas.get(Math.floorMod(index, replicas.size()));
+
+        if (replicas.size() < 2 || !eligibleActions.contains(AciRequests.action(parameters))) {
+            return executeAction(primary, parameters, processor);
+        }
+
+        eligibleRequests.incrementAndGet();
+        final AciServerDetails secondary = replicas.get(Math.floorMod(index + 1, replicas.size()));
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        // counts the hedge from the start, so a failed primary cannot fail the request before the hedge is sent
+        final AtomicInteger inFlight = new AtomicInteger(2);
+        final CompletableFuture<Void> primaryFailed = new CompletableFuture<>();
+        final Consumer<RuntimeException> primaryFailure = e -> {
+            failed(result, inFlight, e);
+            primaryFailed.complete(null);
+        };
+        final FutureTask<Void> primaryAttempt = attempt(primary, parameters, processor, result, primaryFailure, false);
+        FutureTask<Void> hedgeAttempt = null;
+
+        try {
+            start(primaryAttempt, primaryFailure);
+
+            try {
+                // a failed primary is hedged straight away
+                CompletableFuture.anyOf(result, primaryFailed).get(hedgeDelay, TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException ignored) {
+                // the primary is slow, so also ask the secondary
+            }
+
+            if (!result.isDone()) {
+                final Consumer<RuntimeException> hedgeFailure = e -> failed(result, inFlight, e);
+                hedgeAttempt = attempt(secondary, parameters, processor, result, hedgeFailure, true);
+                hedgedRequests.incrementAndGet();
+                start(hedgeAttempt, hedgeFailure);
+            }
+
+            return result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AciServiceException("Interrupted while waiting for " + AciRequests.action(parameters));
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // cancel whichever attempt lost
+            primaryAttempt.cancel(true);
+
+            if (hedgeAttempt != null) {
+                hedgeAttempt.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return The number of requests which were eligible for hedging
+     */
+    public long getEligibleRequests() {
+        return eligibleRequests.get();
+    }
+
+    /**
+     * @return The number of eligible requests which were also sent to a second replica
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * @return The number of hedged requests where the second replica responded first
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return The fraction of eligible requests which were hedged
+     */
+    public double getHedgeRate() {
+        final long eligible = eligibleRequests.get();
+        return eligible == 0 ? 0 : (double) hedgedRequests.get() / eligible;
+    }
+
+    /**
+     * @return The current delay before a request is hedged
+     */
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(hedgeDelay);
+    }
+
+    private <T> FutureTask<Void> attempt(
+            final AciServerDetails serverDetails,
+            final Set<? extends ActionParameter<?>> parameters,
+            final Processor<T> processor,
+            final CompletableFuture<T> result,
+            final Consumer<RuntimeException> onFailure,
+            final boolean hedge
+    ) {
+        return new FutureTask<>(() -> {
+            final long start = System.nanoTime();
+
+            try {
+                final T response = executeAction(serverDetails, parameters, processor);
+                recordSample(System.nanoTime() - start);
+
+                if (result.complete(response) && hedge) {
+                    hedgeWins.incrementAndGet();
+                }
+            } catch (final RuntimeException e) {
+                onFailure.accept(e);
+            }
+        }, null);
+    }
+
+    private void start(final FutureTask<Void> attempt, final Consumer<RuntimeException> onFailure) {
+        try {
+            executor.execute(attempt);
+        } catch (final RejectedExecutionException e) {
+            onFailure.accept(e);
+        }
+    }
+
+    // the request fails once no attempts remain in flight, or straight away if the request itself was rejected
+    private static void failed(final CompletableFuture<?> result, final AtomicInteger inFlight, final RuntimeException e) {
+        if (inFlight.decrementAndGet() == 0 || e instanceof AciErrorException) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void recordSample(final long durationNanos) {
+        synchronized (samples) {
+            samples[sampleNext] = durationNanos;
+            sampleNext = (sampleNext + 1) % samples.length;
+            sampleCount = Math.min(sampleCount + 1, samples.length);
+
+            // sorting is comparatively expensive, so the delay is only recalculated periodically
+            if (sampleCount < settings.getMinimumSamples() || ++samplesSinceUpdate < settings.getMinimumSamples()) {
+                return;
+            }
+
+            samplesSinceUpdate = 0;
+
+            final long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+
+            final int index = Math.min(sorted.length - 1, (int) Math.ceil(settings.getPercentile() * sorted.length) - 1);
+            hedgeDelay = Math.max(settings.getMinimumDelay().toNanos(), sorted[Math.max(0, index)]);
+        }
+    }
+}
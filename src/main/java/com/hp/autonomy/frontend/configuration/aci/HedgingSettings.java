@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Controls which requests {@link HedgingAciService} hedges and when
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class HedgingSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final HedgingSettings DEFAULT = builder().build();
+
+    /**
+     * @return The read only actions which may be sent to a second replica, case insensitive
+     */
+    @Builder.Default
+    private final Set<String> eligibleActions = new HashSet<>(Arrays.asList("Query", "GetQueryTagValues", "GetContent", "GetStatus"));
+
+    /**
+     * @return The percentile of recent response times, between 0 and 1, after which a hedged request is sent
+     */
+    @Builder.Default
+    private final double percentile = 0.95;
+
+    /**
+     * @return The hedge delay used until enough response times have been recorded to calculate the percentile
+     */
+    @Builder.Default
+    private final Duration initialDelay = Duration.ofMillis(100);
+
+    /**
+     * @return The shortest hedge delay, which stops fast servers being hedged on every small variation
+     */
+    @Builder.Default
+    private final Duration minimumDelay = Duration.ofMillis(5);
+
+    /**
+     * @return The number of recent response times used to calculate the percentile
+     */
+    @Builder.Default
+    private final int sampleSize = 1000;
+
+    /**
+     * @return The number of response times which must be recorded before the percentile is used
+     */
+    @Builder.Default
+    private final int minimumSamples = 50;
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ConfigurableAciService} which spreads requests over several mirrored servers, such as replicated Content
+ * engines or DAHs, according to a {@link LoadBalancingPolicy}.
+ * <p>
+ * If a request fails because a connection to a server could not be made, that server is marked unhealthy and, if the
+ * action is idempotent, the request is retried on the next server chosen by the policy. Unhealthy servers are skipped
+ * until the unhealthy period has passed, unless no healthy servers remain. Any other failure, such as a read timeout
+ * or an {@link AciErrorException}, may have happened after the server received the request, so it is thrown to the
+ * caller without failing over or marking the server unhealthy.
+ * <p>
+ * Requests given explicit {@link AciServerDetails} are sent to those details, as in {@link AbstractConfigurableAciService}.
+ */
+public class LoadBalancingAciService extends AbstractConfigurableAciService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancingAciService.class);
+
+    // weight given to the latest response time in the moving average
+    private static final double LATENCY_SMOOTHING = 0.2;
+    // how quickly the average of a server which is not being used decays, so that it is tried again
+    private static final long LATENCY_HALF_LIFE = Duration.ofSeconds(10).toNanos();
+
+    private final List<Endpoint> endpoints;
+    private final LoadBalancingPolicy policy;
+    private final long unhealthyDuration;
+    private final Set<String> idempotentActions;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a service which fails over the default {@link RetrySettings#getIdempotentActions() idempotent actions}
+     *
+     * @param aciService        The {@link AciService} used to send requests
+     * @param servers           The mirrored servers to balance requests over
+     * @param policy            How to choose a server for each request
+     * @param unhealthyDuration How long a server which could not be contacted is avoided
+     */
+    public LoadBalancingAciService(
+            final AciService aciService,
+            final List<ServerConfig> servers,
+            final LoadBalancingPolicy policy,
+            final Duration unhealthyDuration
+    ) {
+        this(aciService, servers, policy, unhealthyDuration, RetrySettings.DEFAULT.getIdempotentActions());
+    }
+
+    /**
+     * @param aciService        The {@link AciService} used to send requests
+     * @param servers           The mirrored servers to balance requests over
+     * @param policy            How to choose a server for each request
+     * @param unhealthyDuration How long a server which could not be contacted is avoided
+     * @param idempotentActions The actions which may be sent to another server after a failure, case insensitive
+     */
+    public LoadBalancingAciService(
+            final AciService aciService,
+            final List<ServerConfig> servers,
+            final LoadBalancingPolicy policy,
+            final Duration unhealthyDuration,
+            final Set<String> idempotentActions
+    ) {
+        this(aciService, servers, policy, unhealthyDuration, idempotentActions, System::nanoTime);
+    }
+
+    LoadBalancingAciService(
+            final AciService aciService,
+            final List<ServerConfig> servers,
+            final LoadBalancingPolicy policy,
+            final Duration unhealthyDuration,
+            final Set<String> idempotentActions,
+            final LongSupplier nanoClock
+    ) {
+        super(aciService);
+
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("At least one server is required");
+        }
+
+        endpoints = servers.stream()
+                .map(server -> new Endpoint(server.toAciServerDetails()))
+                .collect(Collectors.toList());
+        this.policy = policy;
+        this.unhealthyDuration = unhealthyDuration.toNanos();
+        this.idempotentActions = idempotentActions.stream()
+                .map(action -> action.toLowerCase(Locale.ENGLISH))
+                .collect(Collectors.toSet());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return The server the next request would most likely be sent to
+     */
+    @Override
+    public AciServerDetails getServerDetails() {
+        return candidates(false).get(0).details;
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final boolean idempotent = idempotentActions.contains(AciRequests.action(parameters));
+        RuntimeException failure = null;
+
+        for (final Endpoint endpoint : candidates(true)) {
+            endpoint.outstanding.incrementAndGet();
+            final long start = nanoClock.getAsLong();
+
+            try {
+                final T response = executeAction(endpoint.details, parameters, processor);
+                endpoint.recordSuccess(start, nanoClock.getAsLong());
+                return response;
+            } catch (final AciErrorException e) {
+                endpoint.recordSuccess(start, nanoClock.getAsLong());
+                throw e;
+            } catch (final AciServiceException e) {
+                if (!isConnectFailure(e)) {
+                    throw e;
+                }
+
+                LOGGER.warn("Failed to connect to {}:{}; marking it unhealthy", endpoint.details.getHost(), endpoint.details.getPort());
+                endpoint.markUnhealthy(nanoClock.getAsLong() + unhealthyDuration);
+
+                if (!idempotent) {
+                    throw e;
+                }
+
+                failure = e;
+            } finally {
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+
+        throw failure;
+    }
+
+    /**
+     * @return The servers which are not currently marked unhealthy
+     */
+    public List<AciServerDetails> getHealthyServers() {
+        final long now = nanoClock.getAsLong();
+
+        return endpoints.stream()
+                .filter(endpoint -> endpoint.isHealthy(now))
+                .map(endpoint -> endpoint.details)
+                .collect(Collectors.toList());
+    }
+
+    // healthy endpoints in the order given by the policy, followed by the unhealthy endpoints as a last resort
+    private List<Endpoint> candidates(final boolean advance) {
+        final long now = nanoClock.getAsLong();
+        final List<Endpoint> ordered;
+
+        switch (policy) {
+            case LEAST_OUTSTANDING:
+                ordered = sortedBy(endpoint -> endpoint.outstanding.get());
+                break;
+            case LOWEST_LATENCY:
+                ordered = sortedBy(endpoint -> endpoint.latency(now));
+                break;
+            default:
+                final int start = Math.floorMod(advance ? nextIndex.getAndIncrement() : nextIndex.get(), endpoints.size());
+                ordered = new ArrayList<>(endpoints.subList(start, endpoints.size()));
+                ordered.addAll(endpoints.subList(0, start));
+        }
+
+        final List<Endpoint> candidates = new ArrayList<>(ordered.size());
+        final List<Endpoint> unhealthy = new ArrayList<>();
+
+        for (final Endpoint endpoint : ordered) {
+            if (endpoint.isHealthy(now)) {
+                candidates.add(endpoint);
+            } else {
+                unhealthy.add(endpoint);
+            }
+        }
+
+        candidates.addAll(unhealthy);
+        return Collections.unmodifiableList(candidates);
+    }
+
+    // the keys change under concurrent requests, so are read once before sorting
+    private List<Endpoint> sortedBy(final ToDoubleFunction<Endpoint> key) {
+        final Map<Endpoint, Double> keys = new IdentityHashMap<>();
+
+        for (final Endpoint endpoint : endpoints) {
+            keys.put(endpoint, key.applyAsDouble(endpoint));
+        }
+
+        final List<Endpoint> ordered = new ArrayList<>(endpoints);
+        ordered.sort(Comparator.comparingDouble(keys::get));
+        return ordered;
+    }
+
+    // a failure to open a connection, before any of the request was sent
+    private static boolean isConnectFailure(final Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static class Endpoint {
+        private final AciServerDetails details;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private volatile double latency;
+        private volatile long sampledAt;
+        private volatile long unhealthyUntil;
+        private volatile boolean unhealthy;
+
+        private Endpoint(final AciServerDetails details) {
+            this.details = details;
+        }
+
+        private void markUnhealthy(final long until) {
+            unhealthyUntil = until;
+            unhealthy = true;
+        }
+
+        private boolean isHealthy(final long now) {
+            return !unhealthy || now - unhealthyUntil >= 0;
+        }
+
+        // halves for each half-life since the last response, so a server which was slow gets an occasional request
+        // while another is preferred, and is chosen again once it has recovered
+        private double latency(final long now) {
+            return latency * Math.pow(0.5, (double) (now - sampledAt) / LATENCY_HALF_LIFE);
+        }
+
+        private void recordSuccess(final long start, final long end) {
+            final long durationNanos = end - start;
+            unhealthy = false;
+
+            // a racing update may be lost, which only makes the average slightly less smooth; an average which has
+            // decayed no longer describes the server, so starts again from this response
+            latency = latency == 0 || start - sampledAt >= LATENCY_HALF_LIFE
+                    ? durationNanos
+                    : latency + LATENCY_SMOOTHING * (durationNanos - latency);
+            sampledAt = end;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+/**
+ * How {@link LoadBalancingAciService} chooses between its servers
+ */
+public enum LoadBalancingPolicy {
+    /**
+     * Each request goes to the next server in turn
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Each request goes to the server with the fewest requests in progress
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Each request goes to the server with the lowest exponentially weighted moving average response time. The average
+     * of a server which is not receiving requests decays, so a slower server is tried again from time to time and is
+     * preferred once it responds faster.
+     */
+    LOWEST_LATENCY
+}
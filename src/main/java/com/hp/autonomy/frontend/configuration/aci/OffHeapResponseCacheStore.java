@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ResponseCacheStore} which keeps serialized responses in direct buffers outside the Java heap, so that large
+ * responses can be cached without adding to garbage collection work. The least recently used responses are discarded
+ * when the store is full.
+ */
+public class OffHeapResponseCacheStore implements ResponseCacheStore {
+
+    // access ordered; guarded by this
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxBytes;
+    private long bytes;
+    private long evictions;
+
+    /**
+     * @param maxBytes The maximum total size of the stored responses
+     */
+    public OffHeapResponseCacheStore(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized byte[] get(final String key) {
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            remove(key);
+            return null;
+        }
+
+        final byte[] response = new byte[entry.buffer.capacity()];
+        entry.buffer.duplicate().get(response);
+        return response;
+    }
+
+    @Override
+    public synchronized void put(final String key, final byte[] response, final long expiresAtNanos) {
+        if (response.length > maxBytes) {
+            return;
+        }
+
+        remove(key);
+
+        while (bytes + response.length > maxBytes) {
+            final Iterator<Entry> eldest = entries.values().iterator();
+            bytes -= eldest.next().buffer.capacity();
+            eldest.remove();
+            evictions++;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(response.length);
+        buffer.put(response).flip();
+
+        entries.put(key, new Entry(buffer, expiresAtNanos));
+        bytes += response.length;
+    }
+
+    @Override
+    public synchronized void remove(final String key) {
+        final Entry entry = entries.remove(key);
+
+        if (entry != null) {
+            bytes -= entry.buffer.capacity();
+        }
+    }
+
+    @Override
+    public synchronized void removeByPrefix(final String prefix) {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Entry> entry = iterator.next();
+
+            if (entry.getKey().startsWith(prefix)) {
+                bytes -= entry.getValue().buffer.capacity();
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static class Entry {
+        private final ByteBuffer buffer;
+        private final long expiresAt;
+
+        private Entry(final ByteBuffer buffer, final long expiresAt) {
+            this.buffer = buffer;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
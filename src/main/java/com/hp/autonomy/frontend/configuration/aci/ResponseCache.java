@@ -0,0 +1,322 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Two level cache of ACI responses, used by {@link CachingAciService}.
+ * <p>
+ * Responses are keyed by the server, the action, the type of response and the parameters, so that the order in which
+ * the parameters were added does not matter. Only actions with a time to live in the {@link ResponseCacheSettings} are
+ * cached. The first level holds processed responses on heap, evicting the least recently used once their estimated
+ * total size passes the limit. If a second level store is configured, {@link Serializable} responses evicted from the
+ * heap are serialized and moved there, and served from it until they expire.
+ * <p>
+ * Responses served from the heap are the same objects for every caller, so must not be modified. Responses served
+ * from the second level are new copies.
+ */
+public class ResponseCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final ResponseCacheSettings settings;
+    private final Map<String, Long> timeToLives = new HashMap<>();
+    private final ResponseCacheStore secondLevel;
+    private final LongSupplier nanoClock;
+
+    // access ordered; guarded by this
+    private final LinkedHashMap<String, Entry> heap = new LinkedHashMap<>(16, 0.75f, true);
+    private long heapBytes;
+
+    private final AtomicLong heapHits = new AtomicLong();
+    private final AtomicLong secondLevelHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong heapEvictions = new AtomicLong();
+
+    /**
+     * @param settings What to cache and for how long
+     */
+    public ResponseCache(final ResponseCacheSettings settings) {
+        this(settings, System::nanoTime);
+    }
+
+    // the clock can be replaced in tests; the second level store still expects System.nanoTime expiry times
+    ResponseCache(final ResponseCacheSettings settings, final LongSupplier nanoClock) {
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+
+        secondLevel = settings.getSecondLevelStore();
+        settings.getActionTimeToLives().forEach((action, ttl) -> timeToLives.put(action.toLowerCase(Locale.ENGLISH), ttl.toNanos()));
+    }
+
+    /**
+     * Returns a cached response if there is one, otherwise makes the request and caches the response
+     *
+     * @param serverDetails The server the request is sent to
+     * @param parameters    The parameters of the request
+     * @param responseType  The type of the response
+     * @param request       Sends the request
+     * @param <T>           The type of the response
+     * @return The response
+     */
+    <T> T get(
+            final AciServerDetails serverDetails,
+            final Set<? extends ActionParameter<?>> parameters,
+            final Class<T> responseType,
+            final Supplier<T> request
+    ) {
+        final String action = AciRequests.action(parameters);
+        final Long timeToLive = action == null ? null : timeToLives.get(action);
+
+        if (timeToLive == null) {
+            return request.get();
+        }
+
+        final String key = key(serverDetails, action, responseType, parameters);
+        final Object cached = lookup(key);
+
+        if (cached != null) {
+            return responseType.cast(cached);
+        }
+
+        misses.incrementAndGet();
+
+        final T response = request.get();
+
+        if (response != null) {
+            store(key, response, nanoClock.getAsLong() + timeToLive);
+        }
+
+        return response;
+    }
+
+    /**
+     * Discards every cached response from a server
+     *
+     * @param serverDetails The server
+     */
+    public void invalidate(final AciServerDetails serverDetails) {
+        invalidateByPrefix(serverPrefix(serverDetails));
+    }
+
+    /**
+     * Discards the cached responses to an action from a server
+     *
+     * @param serverDetails The server
+     * @param action        The action, case insensitive
+     */
+    public void invalidate(final AciServerDetails serverDetails, final String action) {
+        invalidateByPrefix(actionPrefix(serverDetails, action.toLowerCase(Locale.ENGLISH)));
+    }
+
+    /**
+     * @return The current hit, miss and eviction counts
+     */
+    public ResponseCacheStats getStats() {
+        final long bytes;
+        final int entries;
+
+        synchronized (this) {
+            bytes = heapBytes;
+            entries = heap.size();
+        }
+
+        return new ResponseCacheStats(
+                heapHits.get(),
+                secondLevelHits.get(),
+                misses.get(),
+                heapEvictions.get(),
+                secondLevel == null ? 0 : secondLevel.getEvictions(),
+                bytes,
+                entries
+        );
+    }
+
+    private Object lookup(final String key) {
+        synchronized (this) {
+            final Entry entry = heap.get(key);
+
+            if (entry != null) {
+                if (nanoClock.getAsLong() - entry.expiresAt < 0) {
+                    heapHits.incrementAndGet();
+                    return entry.response;
+                }
+
+                removeFromHeap(key);
+            }
+        }
+
+        if (secondLevel != null) {
+            final byte[] serialized = secondLevel.get(key);
+
+            if (serialized != null) {
+                final Object response = deserialize(serialized);
+
+                if (response != null) {
+                    secondLevelHits.incrementAndGet();
+                    return response;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void store(final String key, final Object response, final long expiresAt) {
+        final long estimate = settings.getSizeEstimator() == null ? -1 : settings.getSizeEstimator().applyAsLong(response);
+        final long size = estimate < 0 ? settings.getDefaultResponseBytes() : estimate;
+
+        if (size > settings.getMaxHeapBytes()) {
+            if (secondLevel != null) {
+                demote(key, new Entry(response, size, expiresAt));
+            }
+
+            return;
+        }
+
+        final Map<String, Entry> evicted = new LinkedHashMap<>();
+
+        synchronized (this) {
+            removeFromHeap(key);
+            heap.put(key, new Entry(response, size, expiresAt));
+            heapBytes += size;
+
+            final Iterator<Map.Entry<String, Entry>> eldest = heap.entrySet().iterator();
+
+            while (heapBytes > settings.getMaxHeapBytes() && eldest.hasNext()) {
+                final Map.Entry<String, Entry> entry = eldest.next();
+                heapBytes -= entry.getValue().size;
+                eldest.remove();
+                evicted.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        heapEvictions.addAndGet(evicted.size());
+
+        if (secondLevel != null) {
+            evicted.forEach(this::demote);
+        }
+    }
+
+    // moves a response to the second level, outside the heap lock since serialization may be slow
+    private void demote(final String key, final Entry entry) {
+        if (entry.response instanceof Serializable && nanoClock.getAsLong() - entry.expiresAt < 0) {
+            final byte[] serialized = serialize(entry.response);
+
+            if (serialized != null) {
+                secondLevel.put(key, serialized, entry.expiresAt);
+            }
+        }
+    }
+
+    private void invalidateByPrefix(final String prefix) {
+        synchronized (this) {
+            final Iterator<Map.Entry<String, Entry>> iterator = heap.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                final Map.Entry<String, Entry> entry = iterator.next();
+
+                if (entry.getKey().startsWith(prefix)) {
+                    heapBytes -= entry.getValue().size;
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (secondLevel != null) {
+            secondLevel.removeByPrefix(prefix);
+        }
+    }
+
+    private void removeFromHeap(final String key) {
+        final Entry removed = heap.remove(key);
+
+        if (removed != null) {
+            heapBytes -= removed.size;
+        }
+    }
+
+    private static String key(
+            final AciServerDetails serverDetails,
+            final String action,
+            final Class<?> responseType,
+            final Set<? extends ActionParameter<?>> parameters
+    ) {
+        return actionPrefix(serverDetails, action) + responseType.getName() + '?' + AciRequests.canonicalParameters(parameters);
+    }
+
+    private static String serverPrefix(final AciServerDetails serverDetails) {
+        return serverDetails.getProtocol() + "://" + serverDetails.getHost() + ':' + serverDetails.getPort() + '/';
+    }
+
+    private static String actionPrefix(final AciServerDetails serverDetails, final String action) {
+        return serverPrefix(serverDetails) + action + '/';
+    }
+
+    private static byte[] serialize(final Object response) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(response);
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to serialize response of type {}", response.getClass(), e);
+            return null;
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(final byte[] serialized) {
+        try (final ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return inputStream.readObject();
+        } catch (final IOException | ClassNotFoundException e) {
+            LOGGER.debug("Unable to deserialize cached response", e);
+            return null;
+        }
+    }
+
+    private static class Entry {
+        private final Object response;
+        private final long size;
+        private final long expiresAt;
+
+        private Entry(final Object response, final long size, final long expiresAt) {
+            this.response = response;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
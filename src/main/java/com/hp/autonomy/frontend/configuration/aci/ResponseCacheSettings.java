@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Controls what {@link ResponseCache} stores and for how long
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class ResponseCacheSettings {
+
+    /**
+     * @return How long the responses to each action are cached, keyed by action name, case insensitive. Responses to
+     * other actions are not cached.
+     */
+    @Singular
+    private final Map<String, Duration> actionTimeToLives;
+
+    /**
+     * @return The maximum total size of the responses held on heap, in bytes
+     */
+    @Builder.Default
+    private final long maxHeapBytes = 64L * 1024 * 1024;
+
+    /**
+     * @return The size assumed for a response when there is no size estimator, or the estimator cannot size it
+     */
+    @Builder.Default
+    private final long defaultResponseBytes = 4096;
+
+    /**
+     * @return Estimates the size of a response in bytes, or a negative number if it is unknown. Null to assume every
+     * response is {@link #getDefaultResponseBytes()}. Called on the requesting thread, so should be cheap.
+     */
+    @Builder.Default
+    private final ToLongFunction<Object> sizeEstimator = ResponseSizeEstimator.DEFAULT;
+
+    /**
+     * @return The second level store which responses evicted from the heap are moved to, or null for none. Only
+     * {@link java.io.Serializable} responses are moved.
+     */
+    private final ResponseCacheStore secondLevelStore;
+}
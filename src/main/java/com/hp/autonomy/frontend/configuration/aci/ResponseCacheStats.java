@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Data;
+
+/**
+ * Counters describing the effectiveness of a {@link ResponseCache}
+ */
+@Data
+public class ResponseCacheStats {
+    private final long heapHits;
+    private final long secondLevelHits;
+    private final long misses;
+    private final long heapEvictions;
+    private final long secondLevelEvictions;
+    private final long heapBytes;
+    private final int heapEntries;
+
+    /**
+     * @return The fraction of lookups answered from either level
+     */
+    public double getHitRate() {
+        final long hits = heapHits + secondLevelHits;
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+/**
+ * Second level storage for serialized responses evicted from the on-heap level of a {@link ResponseCache}.
+ * Implementations must be thread safe, and may discard entries at any time.
+ */
+public interface ResponseCacheStore {
+
+    /**
+     * @param key The cache key
+     * @return The stored response, or null if there is no unexpired response for the key
+     */
+    byte[] get(String key);
+
+    /**
+     * @param key          The cache key
+     * @param response     The serialized response
+     * @param expiresAtNanos When the response expires, in {@link System#nanoTime()} terms
+     */
+    void put(String key, byte[] response, long expiresAtNanos);
+
+    /**
+     * @param key The cache key to remove
+     */
+    void remove(String key);
+
+    /**
+     * Removes every response whose key starts with the given prefix
+     *
+     * @param prefix The key prefix
+     */
+    void removeByPrefix(String prefix);
+
+    /**
+     * @return The number of responses the store has discarded to make space
+     */
+    long getEvictions();
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Estimates the heap used by a response by walking the objects it references, for {@link ResponseCache}.
+ * <p>
+ * Strings, boxed primitives, arrays and the JDK collections and maps are sized directly; other classes are sized from
+ * their fields. The estimate assumes compressed references and ignores sharing with objects outside the response. It
+ * is -1, meaning unknown, if the response references more than the maximum number of objects or a class whose fields
+ * cannot be read, such as a JDK XML document, in which case the cache uses
+ * {@link ResponseCacheSettings#getDefaultResponseBytes()}.
+ */
+public class ResponseSizeEstimator implements ToLongFunction<Object> {
+
+    /**
+     * Estimator which gives up after 10000 objects
+     */
+    public static final ResponseSizeEstimator DEFAULT = new ResponseSizeEstimator(10_000);
+
+    private static final int HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    // a node of a linked or hashed collection, plus the reference to it
+    private static final int ENTRY_BYTES = 32;
+
+    private static final ClassValue<Optional<List<Field>>> FIELDS = new ClassValue<Optional<List<Field>>>() {
+        @Override
+        protected Optional<List<Field>> computeValue(final Class<?> type) {
+            return fields(type);
+        }
+    };
+
+    private final int maxObjects;
+
+    /**
+     * @param maxObjects The maximum number of objects to visit before giving up
+     */
+    public ResponseSizeEstimator(final int maxObjects) {
+        this.maxObjects = maxObjects;
+    }
+
+    @Override
+    public long applyAsLong(final Object response) {
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Object> pending = new ArrayDeque<>();
+        long bytes = 0;
+
+        if (response != null) {
+            pending.push(response);
+        }
+
+        while (!pending.isEmpty()) {
+            final Object object = pending.pop();
+
+            if (!visited.add(object)) {
+                continue;
+            }
+
+            if (visited.size() > maxObjects) {
+                return -1;
+            }
+
+            final long size = size(object, pending);
+
+            if (size < 0) {
+                return -1;
+            }
+
+            bytes += size;
+        }
+
+        return bytes;
+    }
+
+    private static long size(final Object object, final Deque<Object> pending) {
+        final Class<?> type = object.getClass();
+
+        if (object instanceof String) {
+            // compact strings use one byte per character for the Latin-1 text typical of ACI responses
+            return align(HEADER_BYTES + 12) + align(ARRAY_HEADER_BYTES + ((String) object).length());
+        }
+
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return align(HEADER_BYTES + 8);
+        }
+
+        if (object instanceof TemporalAccessor || object instanceof Date) {
+            return align(HEADER_BYTES + 16);
+        }
+
+        if (object instanceof Enum || object instanceof Class) {
+            // shared with the rest of the application
+            return 0;
+        }
+
+        if (type.isArray()) {
+            final int length = Array.getLength(object);
+            final Class<?> componentType = type.getComponentType();
+
+            if (!componentType.isPrimitive()) {
+                for (final Object element : (Object[]) object) {
+                    push(pending, element);
+                }
+            }
+
+            return align(ARRAY_HEADER_BYTES + (long) length * fieldBytes(componentType));
+        }
+
+        if (isJdkClass(type)) {
+            if (object instanceof Collection) {
+                final Collection<?> collection = (Collection<?>) object;
+                collection.forEach(element -> push(pending, element));
+                return align(HEADER_BYTES + 16) + (long) collection.size() * ENTRY_BYTES;
+            }
+
+            if (object instanceof Map) {
+                final Map<?, ?> map = (Map<?, ?>) object;
+
+                map.forEach((key, value) -> {
+                    push(pending, key);
+                    push(pending, value);
+                });
+
+                return align(HEADER_BYTES + 16) + (long) map.size() * ENTRY_BYTES;
+            }
+        }
+
+        final Optional<List<Field>> fields = FIELDS.get(type);
+
+        if (!fields.isPresent()) {
+            return -1;
+        }
+
+        long bytes = HEADER_BYTES;
+
+        for (final Field field : fields.get()) {
+            bytes += fieldBytes(field.getType());
+
+            if (!field.getType().isPrimitive()) {
+                try {
+                    push(pending, field.get(object));
+                } catch (final IllegalAccessException e) {
+                    return -1;
+                }
+            }
+        }
+
+        return align(bytes);
+    }
+
+    // the instance fields of the type and its superclasses, or empty if any cannot be read
+    private static Optional<List<Field>> fields(final Class<?> type) {
+        final List<Field> fields = new ArrayList<>();
+
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (final Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    try {
+                        field.setAccessible(true);
+                    } catch (final RuntimeException e) {
+                        // fields of classes in modules which are not open to us, such as most of the JDK
+                        return Optional.empty();
+                    }
+
+                    fields.add(field);
+                }
+            }
+        }
+
+        return Optional.of(fields);
+    }
+
+    private static void push(final Deque<Object> pending, final Object object) {
+        if (object != null) {
+            pending.push(object);
+        }
+    }
+
+    private static boolean isJdkClass(final Class<?> type) {
+        return type.getName().startsWith("java.");
+    }
+
+    private static int fieldBytes(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+
+        return REFERENCE_BYTES;
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The response types of processors, which {@link CachingAciService} and {@link CoalescingAciService} use to decide
+ * whether requests are identical.
+ * <p>
+ * A {@link TypedProcessor} declares its own type. Other processors, such as those from a
+ * {@link com.opentext.idol.types.marshalling.ProcessorFactory}, must be {@link #register registered} with their type;
+ * they are matched by identity, so the same processor instance must be used for every request, for example by keeping
+ * it in a field. Requests with an unknown processor are not cached or coalesced.
+ */
+public class ResponseTypes {
+
+    // copied on write, since processors are registered once and looked up on every request
+    private volatile Map<Processor<?>, Class<?>> types = new IdentityHashMap<>();
+
+    /**
+     * @param processor    A processor
+     * @param responseType The type of response the processor produces
+     * @param <T>          The type of the response
+     * @return This object
+     */
+    public synchronized <T> ResponseTypes register(final Processor<T> processor, final Class<T> responseType) {
+        final Map<Processor<?>, Class<?>> updated = new IdentityHashMap<>(types);
+        updated.put(processor, responseType);
+        types = updated;
+        return this;
+    }
+
+    /**
+     * @param processor A processor
+     * @param <T>       The type of the response
+     * @return The type of response the processor produces, or null if it is not known
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Class<T> responseType(final Processor<T> processor) {
+        if (processor instanceof TypedProcessor) {
+            return ((TypedProcessor<T>) processor).getResponseType();
+        }
+
+        return (Class<T>) types.get(processor);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Retries failed idempotent requests with exponential backoff and full jitter, subject to a retry budget.
+ * <p>
+ * Every request adds {@link RetrySettings#getRetryBudgetRatio()} to the budget and every retry spends one from it, so
+ * during an outage retries add at most that fraction to the traffic sent to the servers instead of multiplying it.
+ * A single instance is normally shared by the {@link RetryingAciService} and {@link RetryingIndexingService} of an
+ * application, which also share its counters.
+ */
+public class Retrier {
+
+    private final RetrySettings settings;
+    private final Set<String> idempotentActions;
+    private final Set<String> idempotentIndexCommands;
+
+    // guarded by this
+    private double budget;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    /**
+     * @param settings When to retry requests
+     */
+    public Retrier(final RetrySettings settings) {
+        this.settings = settings;
+
+        idempotentActions = lowerCase(settings.getIdempotentActions());
+        idempotentIndexCommands = lowerCase(settings.getIdempotentIndexCommands());
+        budget = settings.getMaxRetryBudget();
+    }
+
+    /**
+     * @return The number of requests made, not counting retries
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of retries made
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return The number of requests which failed after using all their attempts
+     */
+    public long getExhausted() {
+        return exhausted.get();
+    }
+
+    /**
+     * @return The number of failed requests which were not retried because the retry budget was empty
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
+    boolean isIdempotentAction(final String action) {
+        return action != null && idempotentActions.contains(action.toLowerCase(Locale.ENGLISH));
+    }
+
+    boolean isIdempotentIndexCommand(final String command) {
+        return command != null && idempotentIndexCommands.contains(command.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Makes a request, retrying it if it fails in a way which may be transient
+     *
+     * @param request   Makes the request
+     * @param idempotent True if the request may be sent more than once
+     * @param retryable  Decides whether a failure may be transient
+     * @param <T>        The type of the response
+     * @return The response
+     */
+    <T> T execute(final Supplier<T> request, final boolean idempotent, final Predicate<RuntimeException> retryable) {
+        requests.incrementAndGet();
+        deposit();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return request.get();
+            } catch (final RuntimeException e) {
+                if (!idempotent || !retryable.test(e)) {
+                    throw e;
+                }
+
+                if (attempt >= settings.getMaxAttempts()) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+
+                if (!withdraw()) {
+                    budgetExhausted.incrementAndGet();
+                    throw e;
+                }
+
+                if (!backOff(attempt)) {
+                    throw e;
+                }
+
+                retries.incrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(settings.getMaxRetryBudget(), budget + settings.getRetryBudgetRatio());
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+
+        budget--;
+        return true;
+    }
+
+    // sleeps for a random time up to the exponential bound; returns false if interrupted
+    private boolean backOff(final int attempt) {
+        final long initial = settings.getInitialBackoff().toNanos();
+        final long max = settings.getMaxBackoff().toNanos();
+        final long bound = initial << Math.min(attempt - 1, 30);
+        final long ceiling = bound <= 0 || bound > max ? max : bound;
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (final InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Set<String> lowerCase(final Set<String> names) {
+        return names.stream().map(name -> name.toLowerCase(Locale.ENGLISH)).collect(Collectors.toSet());
+    }
+}
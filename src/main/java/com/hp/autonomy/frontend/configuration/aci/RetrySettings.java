@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Controls when {@link Retrier} retries failed requests
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class RetrySettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final RetrySettings DEFAULT = builder().build();
+
+    /**
+     * @return The maximum number of attempts for each request, including the first
+     */
+    @Builder.Default
+    private final int maxAttempts = 3;
+
+    /**
+     * @return The upper bound of the randomised delay before the first retry
+     */
+    @Builder.Default
+    private final Duration initialBackoff = Duration.ofMillis(50);
+
+    /**
+     * @return The upper bound of the randomised delay before any retry. The bound doubles with each retry until it
+     * reaches this value.
+     */
+    @Builder.Default
+    private final Duration maxBackoff = Duration.ofSeconds(1);
+
+    /**
+     * @return The number of retries earned by each request, so 0.1 allows retries to add at most 10% to the traffic
+     * sent to the servers
+     */
+    @Builder.Default
+    private final double retryBudgetRatio = 0.1;
+
+    /**
+     * @return The largest number of retries which can be saved up, and the number available at start up
+     */
+    @Builder.Default
+    private final int maxRetryBudget = 20;
+
+    /**
+     * @return The ACI actions which are safe to send more than once, case insensitive
+     */
+    @Builder.Default
+    private final Set<String> idempotentActions = new HashSet<>(Arrays.asList(
+            "GetStatus", "GetVersion", "GetChildren", "LanguageSettings", "Query", "GetQueryTagValues", "GetContent", "Suggest"
+    ));
+
+    /**
+     * @return The index commands which are safe to send more than once, case insensitive
+     */
+    @Builder.Default
+    private final Set<String> idempotentIndexCommands = new HashSet<>(Arrays.asList(
+            "DREREPLACE", "DREDELETEREF", "DREDELETEDOC", "DRESYNC"
+    ));
+}
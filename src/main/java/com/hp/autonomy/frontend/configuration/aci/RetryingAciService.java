@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.Set;
+
+/**
+ * {@link AciService} which retries idempotent actions when the server cannot be contacted, using a {@link Retrier}.
+ * <p>
+ * Pass this to an {@link AbstractConfigurableAciService} to add retries to a configured service. An
+ * {@link AciErrorException} is the server's answer to the request so is never retried, and neither is a
+ * {@link CircuitBreakerOpenException}.
+ */
+public class RetryingAciService implements AciService {
+
+    private final AciService aciService;
+    private final Retrier retrier;
+
+    /**
+     * @param aciService The {@link AciService} used to send requests
+     * @param retrier    Decides when to retry
+     */
+    public RetryingAciService(final AciService aciService, final Retrier retrier) {
+        this.aciService = aciService;
+        this.retrier = retrier;
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return retrier.execute(() -> aciService.executeAction(parameters, processor), isIdempotent(parameters), RetryingAciService::isRetryable);
+    }
+
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return retrier.execute(() -> aciService.executeAction(serverDetails, parameters, processor), isIdempotent(parameters), RetryingAciService::isRetryable);
+    }
+
+    private boolean isIdempotent(final Set<? extends ActionParameter<?>> parameters) {
+        return retrier.isIdempotentAction(AciRequests.action(parameters));
+    }
+
+    private static boolean isRetryable(final RuntimeException e) {
+        return e instanceof AciServiceException && !(e instanceof AciErrorException) && !(e instanceof CircuitBreakerOpenException);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+
+import java.io.IOException;
+
+/**
+ * {@link IndexingService} which retries idempotent index commands when the index port cannot be contacted, using a
+ * {@link Retrier}.
+ * <p>
+ * Pass this to an {@link AbstractConfigurableIndexingService} to add retries to a configured service. Only failures
+ * caused by an {@link IOException} are retried, since other errors are the server's answer to the command.
+ */
+public class RetryingIndexingService implements IndexingService {
+
+    private final IndexingService indexingService;
+    private final Retrier retrier;
+
+    /**
+     * @param indexingService The {@link IndexingService} used to send commands
+     * @param retrier         Decides when to retry
+     */
+    public RetryingIndexingService(final IndexingService indexingService, final Retrier retrier) {
+        this.indexingService = indexingService;
+        this.retrier = retrier;
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        return retrier.execute(() -> indexingService.executeCommand(command), isIdempotent(command), RetryingIndexingService::isRetryable);
+    }
+
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        return retrier.execute(() -> indexingService.executeCommand(serverDetails, command), isIdempotent(command), RetryingIndexingService::isRetryable);
+    }
+
+    private boolean isIdempotent(final IndexCommand command) {
+        return retrier.isIdempotentIndexCommand(command.getCommand());
+    }
+
+    private static boolean isRetryable(final RuntimeException e) {
+        return e instanceof IndexingException && e.getCause() instanceof IOException;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.opentext.idol.types.responses.SecurityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the security types of Community servers for {@link CommunityServiceImpl}.
+ * <p>
+ * Security types are fresh for the time to live. Once an entry is within the refresh-ahead window of expiring, the
+ * next call starts a background refresh and carries on returning the cached value. An expired entry is still returned
+ * while it is refreshed in the background, for up to the maximum staleness; after that the caller waits for a new
+ * response. Only one load per server runs at a time, and concurrent callers wait for its result.
+ * <p>
+ * A failed load or refresh does not change when the security types were loaded, so they still expire on time. Instead
+ * no further load is tried for the failure backoff, so a Community outage is not retried by every call. During that
+ * time callers are given the last known good security types, or null if there are none; once it has passed, the next
+ * caller tries again.
+ */
+public class SecurityTypesCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecurityTypesCache.class);
+
+    private static final Duration DEFAULT_FAILURE_BACKOFF = Duration.ofSeconds(5);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long timeToLive;
+    private final long refreshAhead;
+    private final long maxStale;
+    private final long failureBackoff;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a cache which waits five seconds after a failure before loading the security types again
+     *
+     * @param timeToLive      How long security types are considered fresh
+     * @param refreshAhead    How long before expiry to start refreshing in the background
+     * @param maxStale        How long after expiry the previous security types are returned while they are refreshed
+     * @param refreshExecutor Runs background refreshes
+     */
+    public SecurityTypesCache(final Duration timeToLive, final Duration refreshAhead, final Duration maxStale, final Executor refreshExecutor) {
+        this(timeToLive, refreshAhead, maxStale, DEFAULT_FAILURE_BACKOFF, refreshExecutor);
+    }
+
+    /**
+     * @param timeToLive      How long security types are considered fresh
+     * @param refreshAhead    How long before expiry to start refreshing in the background
+     * @param maxStale        How long after expiry the previous security types are returned while they are refreshed
+     * @param failureBackoff  How long to wait after a failed load or refresh before trying again
+     * @param refreshExecutor Runs background refreshes
+     */
+    public SecurityTypesCache(final Duration timeToLive, final Duration refreshAhead, final Duration maxStale, final Duration failureBackoff, final Executor refreshExecutor) {
+        this(timeToLive, refreshAhead, maxStale, failureBackoff, refreshExecutor, System::nanoTime);
+    }
+
+    SecurityTypesCache(
+            final Duration timeToLive,
+            final Duration refreshAhead,
+            final Duration maxStale,
+            final Duration failureBackoff,
+            final Executor refreshExecutor,
+            final LongSupplier nanoClock
+    ) {
+        this.timeToLive = timeToLive.toNanos();
+        this.refreshAhead = Math.min(refreshAhead.toNanos(), this.timeToLive);
+        this.maxStale = maxStale.toNanos();
+        this.failureBackoff = failureBackoff.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the security types of a Community server, loading them if they are not cached or are too stale
+     *
+     * @param community The Community server
+     * @param loader    Fetches the security types from Community
+     * @return The security types, or null if they could not be fetched and none were previously known
+     */
+    public List<SecurityType> get(final AciServerDetails community, final Supplier<List<SecurityType>> loader) {
+        final Entry entry = entries.computeIfAbsent(key(community), key -> new Entry());
+        final Loaded loaded = entry.loaded;
+        final long now = nanoClock.getAsLong();
+
+        if (loaded == null || isExpired(loaded, now)) {
+            return isBackingOff(entry, now) ? securityTypes(loaded) : load(entry, loader);
+        }
+
+        if (now - loaded.loadedAt >= timeToLive - refreshAhead && !isBackingOff(entry, now)) {
+            refreshInBackground(community, entry, loader);
+        }
+
+        return loaded.securityTypes;
+    }
+
+    /**
+     * Discards the cached security types of a Community server
+     *
+     * @param community The Community server
+     */
+    public void invalidate(final AciServerDetails community) {
+        entries.remove(key(community));
+    }
+
+    private List<SecurityType> load(final Entry entry, final Supplier<List<SecurityType>> loader) {
+        synchronized (entry) {
+            // another caller may have loaded the security types, or failed to, while this one waited
+            final Loaded loaded = entry.loaded;
+            final long now = nanoClock.getAsLong();
+
+            if (loaded != null && !isExpired(loaded, now) || isBackingOff(entry, now)) {
+                return securityTypes(loaded);
+            }
+
+            try {
+                return store(entry, loader.get());
+            } catch (final RuntimeException e) {
+                LOGGER.debug("Failed to fetch security types", e);
+                backOff(entry);
+                return securityTypes(loaded);
+            }
+        }
+    }
+
+    private void refreshInBackground(final AciServerDetails community, final Entry entry, final Supplier<List<SecurityType>> loader) {
+        // only one refresh per server at a time
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    store(entry, loader.get());
+                } catch (final RuntimeException e) {
+                    LOGGER.warn("Failed to refresh security types from {}:{}; continuing to use the last known good value", community.getHost(), community.getPort());
+                    LOGGER.debug("Refresh failure", e);
+                    backOff(entry);
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            entry.refreshing.set(false);
+            LOGGER.debug("Background refresh rejected", e);
+        }
+    }
+
+    private boolean isExpired(final Loaded loaded, final long now) {
+        return now - loaded.loadedAt >= timeToLive + maxStale;
+    }
+
+    private static boolean isBackingOff(final Entry entry, final long now) {
+        final Long retryAt = entry.retryAt;
+        return retryAt != null && now - retryAt < 0;
+    }
+
+    private void backOff(final Entry entry) {
+        entry.retryAt = nanoClock.getAsLong() + failureBackoff;
+    }
+
+    private List<SecurityType> store(final Entry entry, final List<SecurityType> securityTypes) {
+        entry.loaded = new Loaded(securityTypes, nanoClock.getAsLong());
+        entry.retryAt = null;
+        return securityTypes;
+    }
+
+    private static List<SecurityType> securityTypes(final Loaded loaded) {
+        return loaded == null ? null : loaded.securityTypes;
+    }
+
+    private static String key(final AciServerDetails community) {
+        return community.getProtocol() + "://" + community.getHost() + ':' + community.getPort() + '/';
+    }
+
+    private static class Entry {
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Loaded loaded;
+        // set after a failure; no load is tried until this time
+        private volatile Long retryAt;
+    }
+
+    private static class Loaded {
+        private final List<SecurityType> securityTypes;
+        private final long loadedAt;
+
+        private Loaded(final List<SecurityType> securityTypes, final long loadedAt) {
+            this.securityTypes = securityTypes;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Shares recent GetStatus responses between callers. Parsed responses are cached per server and response type for a
+ * fixed time to live, and concurrent callers asking for the same response share a single request. Failed requests are
+ * not cached.
+ */
+public class StatusSnapshotService {
+
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final long timeToLive;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param timeToLive How long a response is reused for
+     */
+    public StatusSnapshotService(final Duration timeToLive) {
+        this(timeToLive, System::nanoTime);
+    }
+
+    StatusSnapshotService(final Duration timeToLive, final LongSupplier nanoClock) {
+        this.timeToLive = timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param server       The server the status is for
+     * @param responseType The type the response is parsed into
+     * @param request      Sends the GetStatus request and parses the response, if there is no current snapshot
+     * @param <T>          The type of the response
+     * @return The parsed response
+     */
+    public <T> T getStatus(final AciServerDetails server, final Class<T> responseType, final Supplier<T> request) {
+        final String key = key(server) + '/' + responseType.getName();
+
+        while (true) {
+            final Snapshot existing = snapshots.get(key);
+
+            if (existing != null && !existing.isExpired()) {
+                return responseType.cast(existing.join());
+            }
+
+            final Snapshot snapshot = new Snapshot();
+            final boolean created = existing == null
+                    ? snapshots.putIfAbsent(key, snapshot) == null
+                    : snapshots.replace(key, existing, snapshot);
+
+            if (created) {
+                return responseType.cast(snapshot.load(key, request));
+            }
+        }
+    }
+
+    /**
+     * Discards the snapshots for a server, so that the next caller sends a new request
+     *
+     * @param server The server whose snapshots should be discarded
+     */
+    public void invalidate(final AciServerDetails server) {
+        final String prefix = key(server) + '/';
+        snapshots.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String key(final AciServerDetails server) {
+        return server.getProtocol() + "://" + server.getHost() + ':' + server.getPort();
+    }
+
+    private class Snapshot {
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        private Object load(final String key, final Supplier<?> request) {
+            try {
+                final Object value = request.get();
+                expiresAt = nanoClock.getAsLong() + timeToLive;
+                response.complete(value);
+                return value;
+            } catch (final RuntimeException e) {
+                snapshots.remove(key, this);
+                response.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        // a request which is still in flight has not expired
+        private boolean isExpired() {
+            return response.isDone() && nanoClock.getAsLong() - expiresAt >= 0;
+        }
+
+        private Object join() {
+            try {
+                return response.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+
+/**
+ * A {@link Processor} which declares the type of response it produces.
+ * <p>
+ * Processors from a {@link com.opentext.idol.types.marshalling.ProcessorFactory} share a class whatever type they
+ * produce, so {@link CachingAciService} and {@link CoalescingAciService} key requests on a declared response type.
+ * Wrapping a processor in this class declares its type; alternatively the processor can be registered with
+ * {@link ResponseTypes}.
+ *
+ * @param <T> The type of the response
+ */
+public final class TypedProcessor<T> implements Processor<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final Class<T> responseType;
+    private final Processor<T> processor;
+
+    private TypedProcessor(final Class<T> responseType, final Processor<T> processor) {
+        this.responseType = responseType;
+        this.processor = processor;
+    }
+
+    /**
+     * @param responseType The type of response the processor produces
+     * @param processor    The processor
+     * @param <T>          The type of the response
+     * @return The processor, declaring its response type
+     */
+    public static <T> TypedProcessor<T> of(final Class<T> responseType, final Processor<T> processor) {
+        return new TypedProcessor<>(responseType, processor);
+    }
+
+    /**
+     * @return The type of response the processor produces
+     */
+    public Class<T> getResponseType() {
+        return responseType;
+    }
+
+    @Override
+    public T process(final AciResponseInputStream aciResponse) {
+        return processor.process(aciResponse);
+    }
+}
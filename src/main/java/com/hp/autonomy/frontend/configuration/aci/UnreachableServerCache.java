@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers servers which recently failed to respond, so that further requests to them fail immediately instead of
+ * each waiting for the connection timeout. Once the time to live has passed a single request is allowed through to
+ * find out if the server has recovered; other requests continue to fail fast until it completes.
+ * <p>
+ * Servers are identified by host and port. Only an {@link AciServiceException} caused by an {@link IOException} counts
+ * as a failure. An {@link AciErrorException} shows that the server is responding, and other exceptions, such as a
+ * response which cannot be parsed, are rethrown without changing what is known about the server.
+ */
+public class UnreachableServerCache {
+
+    private final Map<String, Unreachable> unreachable = new ConcurrentHashMap<>();
+
+    private final long timeToLive;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param timeToLive How long a server is assumed to be unreachable after a failed request
+     */
+    public UnreachableServerCache(final Duration timeToLive) {
+        this(timeToLive, System::nanoTime);
+    }
+
+    UnreachableServerCache(final Duration timeToLive, final LongSupplier nanoClock) {
+        this.timeToLive = timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Sends a request to a server, unless the server is known to be unreachable
+     *
+     * @param host    The host of the server
+     * @param port    The port of the server
+     * @param request Sends the request
+     * @param <T>     The type of the response
+     * @return The response to the request
+     * @throws AciServiceException If the server is known to be unreachable, or the request fails
+     */
+    public <T> T execute(final String host, final int port, final Supplier<T> request) {
+        final String key = host + ':' + port;
+
+        if (!tryAcquire(key)) {
+            throw new AciServiceException("Server " + key + " is unreachable");
+        }
+
+        final T response;
+
+        try {
+            response = request.get();
+        } catch (final AciErrorException e) {
+            unreachable.remove(key);
+            throw e;
+        } catch (final AciServiceException e) {
+            if (isIoFailure(e)) {
+                unreachable.put(key, new Unreachable(nanoClock.getAsLong() + timeToLive));
+            } else {
+                releaseProbe(key);
+            }
+
+            throw e;
+        } catch (final RuntimeException e) {
+            releaseProbe(key);
+            throw e;
+        }
+
+        unreachable.remove(key);
+        return response;
+    }
+
+    /**
+     * @param host The host of the server
+     * @param port The port of the server
+     * @return True if the server is currently believed to be unreachable
+     */
+    public boolean isUnreachable(final String host, final int port) {
+        final Unreachable entry = unreachable.get(host + ':' + port);
+        return entry != null && !entry.expired(nanoClock.getAsLong());
+    }
+
+    private boolean tryAcquire(final String key) {
+        final Unreachable entry = unreachable.get(key);
+
+        // only one request may probe for recovery at a time
+        return entry == null || entry.expired(nanoClock.getAsLong()) && entry.probing.compareAndSet(false, true);
+    }
+
+    // lets another request probe the server, since this one did not show whether it has recovered
+    private void releaseProbe(final String key) {
+        final Unreachable entry = unreachable.get(key);
+
+        if (entry != null) {
+            entry.probing.set(false);
+        }
+    }
+
+    private static boolean isIoFailure(final Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static class Unreachable {
+        private final long retryAt;
+        private final AtomicBoolean probing = new AtomicBoolean();
+
+        private Unreachable(final long retryAt) {
+            this.retryAt = retryAt;
+        }
+
+        private boolean expired(final long now) {
+            return now - retryAt >= 0;
+        }
+    }
+}
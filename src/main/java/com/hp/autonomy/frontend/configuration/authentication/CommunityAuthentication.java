@@ -25,6 +25,7 @@ import com.hp.autonomy.frontend.configuration.ConfigException;
 import com.hp.autonomy.frontend.configuration.LoginTypes;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
 import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerValidationOptions;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.opentext.idol.types.marshalling.ProcessorFactory;
 import lombok.Builder;
@@ -32,6 +33,10 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * {@link Authentication} representing a Community server.
  */
@@ -108,7 +113,41 @@ public class CommunityAuthentication extends SimpleComponent<CommunityAuthentica
      * @see ServerConfig#validate(AciService, IndexingService, ProcessorFactory)
      */
     public ValidationResult<?> validate(final AciService aciService, final ProcessorFactory processorFactory) {
-        return community.validate(aciService, null, processorFactory);
+        return validate(aciService, processorFactory, ServerValidationOptions.DEFAULT);
+    }
+
+    /**
+     * Checks that the community server details are valid
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param processorFactory The {@link ProcessorFactory} to use for validation
+     * @param options          The {@link ServerValidationOptions} controlling how the server is validated
+     * @return A {@link ValidationResult} determining the validity of the server
+     * @see ServerConfig#validate(AciService, IndexingService, ProcessorFactory, ServerValidationOptions)
+     */
+    public ValidationResult<?> validate(final AciService aciService, final ProcessorFactory processorFactory, final ServerValidationOptions options) {
+        return community.validate(aciService, null, processorFactory, options);
+    }
+
+    /**
+     * Checks that the community server details are valid without blocking the calling thread
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param processorFactory The {@link ProcessorFactory} to use for validation
+     * @param options          The {@link ServerValidationOptions} controlling how the server is validated
+     * @param executor         The {@link Executor} used to run the validation
+     * @param deadline         The maximum time the validation may take, or null for no limit
+     * @return A future which completes with a {@link ValidationResult} determining the validity of the server
+     * @see ServerConfig#validateAsync(AciService, IndexingService, ProcessorFactory, ServerValidationOptions, Executor, Duration)
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(
+            final AciService aciService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options,
+            final Executor executor,
+            final Duration deadline
+    ) {
+        return community.validateAsync(aciService, null, processorFactory, options, executor, deadline);
     }
 
     @SuppressWarnings("WeakerAccess")
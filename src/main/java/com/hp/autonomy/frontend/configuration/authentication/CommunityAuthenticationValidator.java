@@ -15,11 +15,16 @@
 package com.hp.autonomy.frontend.configuration.authentication;
 
 import com.autonomy.aci.client.services.AciService;
+import com.hp.autonomy.frontend.configuration.server.ServerValidationOptions;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.frontend.configuration.validation.Validator;
 import com.opentext.idol.types.marshalling.ProcessorFactory;
 import lombok.Setter;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Validator for {@link CommunityAuthentication}
  */
@@ -38,9 +43,42 @@ public class CommunityAuthenticationValidator implements Validator<CommunityAuth
     @Setter
     private ProcessorFactory processorFactory;
 
+    /**
+     * @param The {@link ServerValidationOptions} controlling how the community server is validated
+     */
+    @Setter
+    private ServerValidationOptions validationOptions = ServerValidationOptions.DEFAULT;
+
+    /**
+     * @param The {@link Executor} used by {@link #validateAsync(CommunityAuthentication)}
+     */
+    @Setter
+    private Executor executor;
+
+    /**
+     * @param The maximum time {@link #validateAsync(CommunityAuthentication)} may take, or null for no limit
+     */
+    @Setter
+    private Duration validationDeadline;
+
     @Override
     public ValidationResult<?> validate(final CommunityAuthentication config) {
-        return config.validate(aciService, processorFactory);
+        return config.validate(aciService, processorFactory, validationOptions);
+    }
+
+    /**
+     * Validates the config without blocking the calling thread
+     *
+     * @param config The config to validate
+     * @return A future which completes with the result of the validation
+     * @throws IllegalStateException If no executor has been set
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(final CommunityAuthentication config) {
+        if (executor == null) {
+            throw new IllegalStateException("An executor must be set to validate asynchronously");
+        }
+
+        return config.validateAsync(aciService, processorFactory, validationOptions, executor, validationDeadline);
     }
 
     @Override
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableIndexingService;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends index commands without blocking the submitting thread.
+ * <p>
+ * Each target server has a bounded queue of commands and its own worker threads, so a slow server does not hold up
+ * commands for the others. When a queue is full, submission blocks or is rejected according to the
+ * {@link OverflowPolicy}, pushing back on producers instead of buffering without limit. Commands for a target are
+ * started in the order they were submitted, but with more than one worker they may complete out of order. The workers
+ * of a target which has been idle for the {@link AsyncIndexingSettings#getIdleTimeout() idle timeout} stop, and are
+ * started again by the next command for it. If every worker of a target is interrupted, the commands left in its queue
+ * fail with a {@link RejectedExecutionException}.
+ */
+public class AsyncIndexingService implements Closeable {
+
+    private final ConfigurableIndexingService indexingService;
+    private final AsyncIndexingSettings settings;
+    private final ThreadFactory threadFactory;
+
+    private final ConcurrentMap<String, Target> targets = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * @param indexingService The {@link ConfigurableIndexingService} used to send commands
+     * @param settings        Controls the queues and workers
+     * @param threadFactory   Creates the worker threads
+     */
+    public AsyncIndexingService(final ConfigurableIndexingService indexingService, final AsyncIndexingSettings settings, final ThreadFactory threadFactory) {
+        this.indexingService = indexingService;
+        this.settings = settings;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Submits a command for the server returned by {@link ConfigurableIndexingService#getServerDetails()}
+     *
+     * @param command The command to send
+     * @return A future which completes with the index ID of the command. If the future is cancelled before the command is
+     * sent, the command is skipped.
+     * @throws RejectedExecutionException If the queue is full or the service has been closed
+     */
+    public CompletableFuture<Integer> submit(final IndexCommand command) {
+        return submit(indexingService.getServerDetails(), command);
+    }
+
+    /**
+     * @param serverDetails The server to send the command to
+     * @param command       The command to send
+     * @return A future which completes with the index ID of the command. If the future is cancelled before the command is
+     * sent, the command is skipped.
+     * @throws RejectedExecutionException If the queue is full or the service has been closed
+     */
+    public CompletableFuture<Integer> submit(final ServerDetails serverDetails, final IndexCommand command) {
+        if (closed) {
+            throw new RejectedExecutionException("The indexing service has been closed");
+        }
+
+        while (true) {
+            final Target target = targets.computeIfAbsent(key(serverDetails), key -> new Target(key, serverDetails));
+            final Submission submission = new Submission(command);
+            offer(target, submission);
+
+            // the workers may have stopped after checking the queue, in which case the submission must be taken back
+            if (closed || target.retired) {
+                if (target.queue.remove(submission)) {
+                    if (closed) {
+                        throw new RejectedExecutionException("The indexing service has been closed");
+                    }
+
+                    // the target was retired; start a new one
+                    continue;
+                }
+            }
+
+            return submission.future;
+        }
+    }
+
+    /**
+     * @return The number of commands waiting to be sent to any target
+     */
+    public int getQueuedCommands() {
+        return targets.values().stream().mapToInt(target -> target.queue.size()).sum();
+    }
+
+    /**
+     * Stops accepting commands. Commands which have already been queued are still sent.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Waits for the workers to send the remaining commands after {@link #close()}
+     *
+     * @param timeout The longest time to wait
+     * @param unit    The unit of the timeout
+     * @return True if every worker finished
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (final Target target : targets.values()) {
+            for (final Thread worker : target.workers) {
+                final long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+
+                if (worker.isAlive()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void offer(final Target target, final Submission submission) {
+        final boolean queued;
+
+        if (settings.getOverflowPolicy() == OverflowPolicy.BLOCK) {
+            try {
+                queued = target.queue.offer(submission, settings.getMaxBlock().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for space in the queue for " + target.key);
+            }
+        } else {
+            queued = target.queue.offer(submission);
+        }
+
+        if (!queued) {
+            throw new RejectedExecutionException("The queue for " + target.key + " is full");
+        }
+    }
+
+    private void work(final Target target) {
+        try {
+            sendQueued(target);
+        } catch (final InterruptedException e) {
+            // stop taking new commands for the target, and fail the queued commands if no workers remain
+            retire(target);
+        } finally {
+            if (target.activeWorkers.decrementAndGet() == 0) {
+                final List<Submission> remaining = new ArrayList<>();
+                target.queue.drainTo(remaining);
+                remaining.forEach(submission -> submission.future.completeExceptionally(
+                        new RejectedExecutionException("The workers for " + target.key + " were interrupted")));
+            }
+        }
+    }
+
+    private void sendQueued(final Target target) throws InterruptedException {
+        long idleSince = System.nanoTime();
+
+        while (true) {
+            final Submission submission = target.queue.poll(100, TimeUnit.MILLISECONDS);
+
+            if (submission == null) {
+                if (!closed && !target.retired && System.nanoTime() - idleSince >= settings.getIdleTimeout().toNanos()) {
+                    retire(target);
+                }
+
+                // the flags are read before the queue, so a command submitted before they were set is still sent
+                if ((closed || target.retired) && target.queue.isEmpty()) {
+                    return;
+                }
+
+                continue;
+            }
+
+            idleSince = System.nanoTime();
+
+            if (submission.future.isDone()) {
+                // cancelled while queued
+                continue;
+            }
+
+            try {
+                submission.future.complete(indexingService.executeCommand(target.serverDetails, submission.command));
+            } catch (final RuntimeException e) {
+                submission.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void retire(final Target target) {
+        target.retired = true;
+        targets.remove(target.key, target);
+    }
+
+    private static String key(final ServerDetails serverDetails) {
+        return serverDetails.getProtocol() + "://" + serverDetails.getHost() + ':' + serverDetails.getPort();
+    }
+
+    private class Target {
+        private final String key;
+        private final ServerDetails serverDetails;
+        private final BlockingQueue<Submission> queue;
+        private final List<Thread> workers = new ArrayList<>();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private volatile boolean retired;
+
+        private Target(final String key, final ServerDetails serverDetails) {
+            this.key = key;
+            this.serverDetails = serverDetails;
+            queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+            activeWorkers.set(settings.getWorkersPerTarget());
+
+            for (int i = 0; i < settings.getWorkersPerTarget(); i++) {
+                final Thread worker = threadFactory.newThread(() -> work(this));
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    private static class Submission {
+        private final IndexCommand command;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        private Submission(final IndexCommand command) {
+            this.command = command;
+        }
+    }
+}
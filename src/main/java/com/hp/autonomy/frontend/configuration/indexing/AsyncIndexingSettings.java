@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Controls the queues and workers of an {@link AsyncIndexingService}
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class AsyncIndexingSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final AsyncIndexingSettings DEFAULT = builder().build();
+
+    /**
+     * @return The number of commands which can wait to be sent to each target
+     */
+    @Builder.Default
+    private final int queueCapacity = 1000;
+
+    /**
+     * @return The number of threads sending commands to each target
+     */
+    @Builder.Default
+    private final int workersPerTarget = 2;
+
+    /**
+     * @return What happens when a command is submitted to a full queue
+     */
+    @Builder.Default
+    private final OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    /**
+     * @return The longest time {@link OverflowPolicy#BLOCK} waits for space in a queue before rejecting the command
+     */
+    @Builder.Default
+    private final Duration maxBlock = Duration.ofSeconds(30);
+
+    /**
+     * @return How long a target's workers wait without any commands before they stop. A new command for the target
+     * starts them again.
+     */
+    @Builder.Default
+    private final Duration idleTimeout = Duration.ofMinutes(1);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.impl.IndexCommandImpl;
+import com.autonomy.nonaci.indexing.impl.PostDataImpl;
+
+import java.util.List;
+
+/**
+ * Builds the {@link IndexCommand} which sends a batch of documents
+ */
+@FunctionalInterface
+public interface BatchCommandFactory {
+
+    /**
+     * Sends IDX documents in the body of the command, followed by #DREENDDATANOOP. This suits DREADDDATA and
+     * DREREPLACE.
+     */
+    BatchCommandFactory IDX = (command, database, documents) -> {
+        final StringBuilder body = new StringBuilder();
+
+        for (final String document : documents) {
+            body.append(document);
+
+            if (!document.endsWith("\n")) {
+                body.append('\n');
+            }
+        }
+
+        body.append("#DREENDDATANOOP\n\n");
+
+        final IndexCommandImpl indexCommand = new IndexCommandImpl(command);
+        indexCommand.put("DREDbName", database);
+        indexCommand.setPostData(new PostDataImpl(body.toString()));
+        return indexCommand;
+    };
+
+    /**
+     * @param command   The index command, for example DREADDDATA
+     * @param database  The database the documents are indexed into
+     * @param documents The documents in the batch, in the order they were added
+     * @return The command which sends the documents
+     */
+    IndexCommand create(String command, String database, List<String> documents);
+}
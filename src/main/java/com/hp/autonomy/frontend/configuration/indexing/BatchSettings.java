@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Controls when {@link BatchingIndexWriter} sends the documents it has accumulated
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class BatchSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final BatchSettings DEFAULT = builder().build();
+
+    /**
+     * @return The number of documents which causes a batch to be sent
+     */
+    @Builder.Default
+    private final int maxDocuments = 500;
+
+    /**
+     * @return The size in bytes of the documents which causes a batch to be sent
+     */
+    @Builder.Default
+    private final long maxBytes = 10 * 1024 * 1024;
+
+    /**
+     * @return The longest time a document waits for its batch to fill before the batch is sent anyway
+     */
+    @Builder.Default
+    private final Duration linger = Duration.ofSeconds(1);
+
+    /**
+     * @return Builds the index command for each batch
+     */
+    @Builder.Default
+    private final BatchCommandFactory commandFactory = BatchCommandFactory.IDX;
+}
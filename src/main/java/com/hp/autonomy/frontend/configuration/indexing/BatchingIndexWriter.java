@@ -0,0 +1,314 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import lombok.Data;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Accumulates documents for each index command and database, sending each batch as a single {@link IndexCommand}.
+ * <p>
+ * A batch is sent when it reaches the document count or size in the {@link BatchSettings}, or when its first document
+ * has waited for the linger time. Every document in a batch shares the index ID returned for the batch. Batches are
+ * sent on the given {@link ScheduledExecutorService} one at a time and in the order they were completed, so the target
+ * applies commands in the order they were added even if the executor has several threads.
+ */
+public class BatchingIndexWriter implements Closeable {
+
+    private final IndexingService indexingService;
+    private final BatchSettings settings;
+    private final ScheduledExecutorService executor;
+
+    private final Map<BatchKey, Batch> batches = new HashMap<>();
+    private final Queue<Send> sends = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+
+    private final AtomicLong documentsSent = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+
+    /**
+     * @param indexingService The {@link IndexingService} used to send batches, usually a
+     *                        {@link com.hp.autonomy.frontend.configuration.aci.ConfigurableIndexingService}
+     * @param settings        Controls when batches are sent
+     * @param executor        Sends batches and enforces the linger time
+     */
+    public BatchingIndexWriter(final IndexingService indexingService, final BatchSettings settings, final ScheduledExecutorService executor) {
+        this.indexingService = indexingService;
+        this.settings = settings;
+        this.executor = executor;
+    }
+
+    /**
+     * @param command  The index command, for example DREADDDATA or DREREPLACE
+     * @param database The database to index the document into
+     * @param document The document, in the format expected by the {@link BatchCommandFactory}
+     * @return A future which completes with the index ID of the batch containing the document, or fails if the batch
+     * could not be sent
+     * @throws IllegalStateException If the writer has been closed
+     */
+    public CompletableFuture<Integer> add(final String command, final String database, final String document) {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        final BatchKey key = new BatchKey(command.toUpperCase(Locale.ENGLISH), database);
+        final long bytes = document.getBytes(StandardCharsets.UTF_8).length;
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The writer has been closed");
+            }
+
+            Batch batch = batches.get(key);
+
+            if (batch == null) {
+                batch = new Batch(key);
+                batches.put(key, batch);
+                scheduleLinger(batch);
+            }
+
+            batch.documents.add(document);
+            batch.futures.add(future);
+            batch.bytes += bytes;
+
+            if (batch.documents.size() >= settings.getMaxDocuments() || batch.bytes >= settings.getMaxBytes()) {
+                batches.remove(key);
+                send(batch);
+            }
+        }
+
+        return future;
+    }
+
+    /**
+     * Sends every batch, then sends a command after them and waits for its result. Use this for commands which must
+     * not overtake documents already added, such as a DREDELETEREF for one of them. This must not be called from the
+     * writer's executor.
+     *
+     * @param command The command to send
+     * @return The index ID returned for the command
+     * @throws IndexingException If the command fails
+     */
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        synchronized (this) {
+            flush();
+            enqueue(() -> {
+                try {
+                    future.complete(indexingService.executeCommand(command));
+                } catch (final RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                    throwIfError(e);
+                }
+            }, future::completeExceptionally);
+        }
+
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException("Interrupted while waiting for an index command", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IndexingException("Unable to send index command", e.getCause());
+        }
+    }
+
+    /**
+     * Sends every batch without waiting for it to fill
+     */
+    public synchronized void flush() {
+        for (final Batch batch : batches.values()) {
+            send(batch);
+        }
+
+        batches.clear();
+    }
+
+    /**
+     * Sends every batch and stops accepting documents. Does not wait for the batches to be indexed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+
+        flush();
+    }
+
+    /**
+     * @return The number of documents sent
+     */
+    public long getDocumentsSent() {
+        return documentsSent.get();
+    }
+
+    /**
+     * @return The number of batches sent
+     */
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    private void scheduleLinger(final Batch batch) {
+        try {
+            batch.linger = executor.schedule(() -> {
+                synchronized (this) {
+                    // otherwise it has already been sent
+                    if (batches.remove(batch.key, batch)) {
+                        send(batch);
+                    }
+                }
+            }, settings.getLinger().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final RejectedExecutionException ignored) {
+            // the batch will be sent when it fills or the writer is flushed
+        }
+    }
+
+    // called with the lock held, so batches are queued in the order they were completed
+    private void send(final Batch batch) {
+        if (batch.linger != null) {
+            batch.linger.cancel(false);
+        }
+
+        enqueue(() -> {
+            try {
+                final IndexCommand command = settings.getCommandFactory().create(batch.key.command, batch.key.database, batch.documents);
+                final int indexId = indexingService.executeCommand(command);
+
+                batchesSent.incrementAndGet();
+                documentsSent.addAndGet(batch.documents.size());
+                batch.futures.forEach(future -> future.complete(indexId));
+            } catch (final RuntimeException | Error e) {
+                batch.futures.forEach(future -> future.completeExceptionally(e));
+                throwIfError(e);
+            }
+        }, e -> batch.futures.forEach(future -> future.completeExceptionally(e)));
+    }
+
+    // runs the sends one at a time on the executor, so a later send never overtakes an earlier one
+    private void enqueue(final Runnable send, final Consumer<RejectedExecutionException> onRejected) {
+        sends.add(new Send(send, onRejected));
+
+        if (!sending) {
+            startDrain();
+        }
+    }
+
+    // called with the lock held
+    private void startDrain() {
+        sending = true;
+
+        try {
+            executor.execute(this::drain);
+        } catch (final RejectedExecutionException e) {
+            sending = false;
+
+            final List<Send> rejected = new ArrayList<>(sends);
+            sends.clear();
+            rejected.forEach(send -> send.onRejected.accept(e));
+        }
+    }
+
+    private void drain() {
+        boolean drained = false;
+
+        try {
+            while (true) {
+                final Send send;
+
+                synchronized (this) {
+                    send = sends.poll();
+
+                    if (send == null) {
+                        sending = false;
+                        drained = true;
+                        return;
+                    }
+                }
+
+                send.send.run();
+            }
+        } finally {
+            if (!drained) {
+                // a send threw, so hand the remaining sends to a new drain rather than leaving them queued forever
+                synchronized (this) {
+                    if (sends.isEmpty()) {
+                        sending = false;
+                    } else {
+                        startDrain();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void throwIfError(final Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+    }
+
+    @Data
+    private static class BatchKey {
+        private final String command;
+        private final String database;
+    }
+
+    private static class Send {
+        private final Runnable send;
+        private final Consumer<RejectedExecutionException> onRejected;
+
+        private Send(final Runnable send, final Consumer<RejectedExecutionException> onRejected) {
+            this.send = send;
+            this.onRejected = onRejected;
+        }
+    }
+
+    private static class Batch {
+        private final BatchKey key;
+        private final List<String> documents = new ArrayList<>();
+        private final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        private long bytes;
+        private ScheduledFuture<?> linger;
+
+        private Batch(final BatchKey key) {
+            this.key = key;
+        }
+    }
+}
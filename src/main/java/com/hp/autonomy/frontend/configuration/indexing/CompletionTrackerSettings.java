@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Controls how {@link IndexCompletionTracker} polls for the status of index commands
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class CompletionTrackerSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final CompletionTrackerSettings DEFAULT = builder().build();
+
+    /**
+     * @return The time between polls of each server
+     */
+    @Builder.Default
+    private final Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * @return The largest number of index IDs requested in one IndexerGetStatus action
+     */
+    @Builder.Default
+    private final int maxIdsPerPoll = 100;
+
+    /**
+     * @return The longest time to track an index ID before its future fails with a
+     * {@link java.util.concurrent.TimeoutException}
+     */
+    @Builder.Default
+    private final Duration timeout = Duration.ofMinutes(10);
+
+    /**
+     * @return The statuses which mean a command has been indexed
+     */
+    @Builder.Default
+    private final Set<Integer> finishedStatuses = Collections.singleton(-1);
+
+    /**
+     * @return The negative statuses which mean a command is still waiting to be indexed. Non-negative statuses always
+     * mean the command is being processed, and any other status means it failed.
+     */
+    @Builder.Default
+    private final Set<Integer> pendingStatuses = Collections.singleton(-2);
+
+    /**
+     * @param status A status returned by IndexerGetStatus
+     * @return True if the status means a command is waiting to be indexed or is being processed
+     */
+    public boolean isPending(final int status) {
+        return status >= 0 || pendingStatuses.contains(status);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maps keys to nodes by consistent hashing, with many points on the ring for each node so that keys are spread
+ * evenly. Adding a node only moves the keys which hash to its points. Instances are immutable.
+ */
+class ConsistentHashRing {
+
+    // 2^64, the size of the ring
+    private static final double RING_SIZE = Math.pow(2, 64);
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    /**
+     * @param nodes        The names of the nodes
+     * @param virtualNodes The number of points on the ring for each node
+     */
+    ConsistentHashRing(final Collection<String> nodes, final int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+
+        for (final String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node + '#' + i), node);
+            }
+        }
+    }
+
+    /**
+     * @param key The key to look up, for example a document reference
+     * @return The node which owns the key
+     */
+    String get(final String key) {
+        return owner(hash(key));
+    }
+
+    /**
+     * @return The fraction of the ring owned by each node
+     */
+    Map<String, Double> getOwnership() {
+        final Map<String, Double> ownership = new HashMap<>();
+        long previous = points.lastKey();
+
+        for (final Map.Entry<Long, String> point : points.entrySet()) {
+            ownership.merge(point.getValue(), fraction(previous, point.getKey()), Double::sum);
+            previous = point.getKey();
+        }
+
+        return ownership;
+    }
+
+    /**
+     * @param other Another ring, usually this ring with nodes added or removed
+     * @return The fraction of keys which belong to a different node in the other ring
+     */
+    double getMovedFraction(final ConsistentHashRing other) {
+        final TreeSet<Long> boundaries = new TreeSet<>(points.keySet());
+        boundaries.addAll(other.points.keySet());
+
+        double moved = 0;
+        long previous = boundaries.last();
+
+        // the keys between two adjacent boundaries all belong to the same node in each ring
+        for (final long boundary : boundaries) {
+            if (!owner(boundary).equals(other.owner(boundary))) {
+                moved += fraction(previous, boundary);
+            }
+
+            previous = boundary;
+        }
+
+        return moved;
+    }
+
+    private String owner(final long hash) {
+        final Map.Entry<Long, String> point = points.ceilingEntry(hash);
+        return point == null ? points.firstEntry().getValue() : point.getValue();
+    }
+
+    // the fraction of the ring after start, up to and including end, wrapping around if necessary
+    private static double fraction(final long start, final long end) {
+        final long length = end - start;
+
+        if (length == 0) {
+            // a single point owns the whole ring
+            return 1;
+        }
+
+        final double unsigned = length >= 0 ? length : length + RING_SIZE;
+        return unsigned / RING_SIZE;
+    }
+
+    private static long hash(final String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform supports MD5
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only queue of records stored in memory-mapped segment files.
+ * <p>
+ * Records are appended to the newest segment, starting a new one when it is full. Each record is written as its
+ * length, a CRC32 of its contents and the contents, and a zero length marks the end of a segment. The position of the
+ * next record to read is kept in a checkpoint file, so records survive a restart until they are
+ * {@link #advance() consumed}. Records which cannot be processed can instead be moved to a dead letter file with
+ * {@link #deadLetter()}. {@link #compact()} deletes segments which have been fully consumed.
+ * <p>
+ * Writes reach the page cache immediately, so they survive the process exiting; set {@code force} to also flush each
+ * write to the disk, which survives the machine failing but is much slower.
+ */
+public class IndexCommandSpool implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letters";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean force;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer checkpoint;
+
+    private Segment writeSegment;
+    private long readSegmentId;
+    private int readOffset;
+    private long pending;
+    private long deadLetters;
+
+    /**
+     * @param directory    The directory holding the segment files, which is created if necessary
+     * @param segmentBytes The size of each segment file, which limits the size of a record
+     * @param force        Whether to flush every write to the disk
+     * @throws IOException If the spool cannot be opened
+     */
+    public IndexCommandSpool(final Path directory, final int segmentBytes, final boolean force) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.force = force;
+
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory, '*' + SEGMENT_SUFFIX)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                final long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, new Segment(id, file));
+            }
+        }
+
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES + Integer.BYTES);
+        readSegmentId = checkpoint.getLong(0);
+        readOffset = checkpoint.getInt(Long.BYTES);
+
+        if (segments.isEmpty()) {
+            writeSegment = createSegment(Math.max(readSegmentId, 0));
+        } else {
+            writeSegment = segments.lastEntry().getValue();
+            writeSegment.position = scan(writeSegment, 0);
+        }
+
+        if (!segments.containsKey(readSegmentId)) {
+            // the checkpoint refers to a compacted segment, or there is no checkpoint yet
+            readSegmentId = segments.firstKey();
+            readOffset = 0;
+        }
+
+        for (final Segment segment : segments.tailMap(readSegmentId).values()) {
+            pending += count(segment, segment.id == readSegmentId ? readOffset : 0);
+        }
+    }
+
+    /**
+     * @param record The record to append
+     * @throws IOException              If a new segment cannot be created
+     * @throws IllegalArgumentException If the record cannot fit in a segment
+     */
+    public synchronized void append(final byte[] record) throws IOException {
+        final int recordBytes = HEADER_BYTES + record.length;
+
+        // leave room for the end of segment marker
+        if (recordBytes + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + record.length + " bytes is too large for the spool");
+        }
+
+        if (writeSegment.position + recordBytes + Integer.BYTES > segmentBytes) {
+            writeSegment = createSegment(writeSegment.id + 1);
+        }
+
+        final MappedByteBuffer buffer = writeSegment.buffer;
+        final int position = writeSegment.position;
+        buffer.putInt(position + Integer.BYTES, crc(record));
+
+        for (int i = 0; i < record.length; i++) {
+            buffer.put(position + HEADER_BYTES + i, record[i]);
+        }
+
+        // the length is written last, so a partly written record is never read
+        buffer.putInt(position, record.length);
+        writeSegment.position += recordBytes;
+        pending++;
+
+        if (force) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * @return The oldest record which has not been consumed, or null if there is none
+     * @throws IllegalStateException If the record is corrupt
+     */
+    public synchronized byte[] peek() {
+        final int length = headLength();
+
+        if (length == 0) {
+            return null;
+        }
+
+        final Segment segment = segments.get(readSegmentId);
+
+        if (!fits(length)) {
+            throw new IllegalStateException("Corrupt record length in spool segment " + segment.id + " at offset " + readOffset);
+        }
+
+        final byte[] record = read(segment, length);
+
+        if (crc(record) != segment.buffer.getInt(readOffset + Integer.BYTES)) {
+            throw new IllegalStateException("Corrupt record in spool segment " + segment.id + " at offset " + readOffset);
+        }
+
+        return record;
+    }
+
+    /**
+     * Consumes the record returned by {@link #peek()}
+     *
+     * @throws IllegalStateException If there is no record to consume
+     */
+    public synchronized void advance() {
+        final byte[] record = peek();
+
+        if (record == null) {
+            throw new IllegalStateException("The spool is empty");
+        }
+
+        readOffset += HEADER_BYTES + record.length;
+        pending--;
+        writeCheckpoint();
+    }
+
+    /**
+     * Consumes the oldest record without checking it, appending its contents to the dead letter file in the spool
+     * directory so that it can be inspected later. This is used for records which are corrupt, or which cannot be
+     * processed, so that they do not block the records behind them.
+     * <p>
+     * If the length of the record is corrupt then its end cannot be found, and the rest of its segment is skipped.
+     *
+     * @throws IOException           If the dead letter file cannot be written
+     * @throws IllegalStateException If there is no record to consume
+     */
+    public synchronized void deadLetter() throws IOException {
+        final int length = headLength();
+
+        if (length == 0) {
+            throw new IllegalStateException("The spool is empty");
+        }
+
+        final Segment segment = segments.get(readSegmentId);
+        final byte[] record = fits(length) ? read(segment, length) : new byte[0];
+
+        try (final DataOutputStream output = new DataOutputStream(Files.newOutputStream(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            output.writeInt(record.length);
+            output.write(record);
+        }
+
+        if (record.length > 0) {
+            readOffset += HEADER_BYTES + length;
+        } else {
+            if (segment == writeSegment) {
+                // new records must not be appended after the corrupt length
+                writeSegment = createSegment(writeSegment.id + 1);
+            }
+
+            readSegmentId = segments.higherKey(readSegmentId);
+            readOffset = 0;
+        }
+
+        // records with a corrupt length were never counted
+        pending = Math.max(pending - 1, 0);
+        deadLetters++;
+        writeCheckpoint();
+    }
+
+    /**
+     * @return The number of records which have not been consumed
+     */
+    public synchronized long getPending() {
+        return pending;
+    }
+
+    /**
+     * @return The number of records moved to the dead letter file since the spool was opened
+     */
+    public synchronized long getDeadLetters() {
+        return deadLetters;
+    }
+
+    /**
+     * @return True if every record has been consumed
+     */
+    public synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * Deletes the segments whose records have all been consumed
+     *
+     * @return The number of segments deleted
+     * @throws IOException If a segment cannot be deleted
+     */
+    public synchronized int compact() throws IOException {
+        // moves the read position past the end of a fully consumed segment
+        headLength();
+
+        int deleted = 0;
+
+        while (segments.firstKey() < readSegmentId) {
+            final Segment segment = segments.pollFirstEntry().getValue();
+            segment.channel.close();
+            Files.deleteIfExists(segment.file);
+            deleted++;
+        }
+
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (final Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+
+        checkpointChannel.close();
+    }
+
+    private Segment createSegment(final long id) throws IOException {
+        final Segment segment = new Segment(id, directory.resolve(String.format("%020d", id) + SEGMENT_SUFFIX));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // moves the read position past fully consumed segments, returning the length of the next record or 0 if there is none
+    private int headLength() {
+        while (true) {
+            final int length = readOffset + HEADER_BYTES <= segmentBytes ? segments.get(readSegmentId).buffer.getInt(readOffset) : 0;
+
+            if (length != 0 || readSegmentId == writeSegment.id) {
+                return length;
+            }
+
+            readSegmentId = segments.higherKey(readSegmentId);
+            readOffset = 0;
+        }
+    }
+
+    private boolean fits(final int length) {
+        return length > 0 && readOffset + HEADER_BYTES + length <= segmentBytes;
+    }
+
+    private byte[] read(final Segment segment, final int length) {
+        final byte[] record = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            record[i] = segment.buffer.get(readOffset + HEADER_BYTES + i);
+        }
+
+        return record;
+    }
+
+    private void writeCheckpoint() {
+        checkpoint.putLong(0, readSegmentId);
+        checkpoint.putInt(Long.BYTES, readOffset);
+
+        if (force) {
+            checkpoint.force();
+        }
+    }
+
+    // returns the offset of the end of the records from the given offset
+    private int scan(final Segment segment, final int offset) {
+        int position = offset;
+
+        while (position + HEADER_BYTES <= segmentBytes) {
+            final int length = segment.buffer.getInt(position);
+
+            if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+
+            position += HEADER_BYTES + length;
+        }
+
+        return position;
+    }
+
+    private long count(final Segment segment, final int offset) {
+        final int end = scan(segment, offset);
+        long count = 0;
+
+        for (int position = offset; position < end; position += HEADER_BYTES + segment.buffer.getInt(position)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    private static int crc(final byte[] record) {
+        final CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+
+    private class Segment {
+        private final long id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(final long id, final Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+}
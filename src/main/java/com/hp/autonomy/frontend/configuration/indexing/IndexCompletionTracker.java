@@ -0,0 +1,224 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import com.autonomy.nonaci.indexing.IndexingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the index IDs returned by index commands until they have been indexed.
+ * <p>
+ * Each server with tracked IDs is polled with IndexerGetStatus on a fixed interval, asking for the status of many IDs
+ * in each action rather than polling every ID separately. The future for an ID completes with its final status when
+ * the status is finished, and fails with an {@link IndexingException} when the status means the command failed. IDs
+ * missing from the response are left pending until the timeout.
+ */
+public class IndexCompletionTracker implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexCompletionTracker.class);
+
+    private static final String INDEXER_GET_STATUS = "IndexerGetStatus";
+    private static final IndexerStatusProcessor PROCESSOR = new IndexerStatusProcessor();
+
+    private final AciService aciService;
+    private final CompletionTrackerSettings settings;
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentMap<String, Server> servers = new ConcurrentHashMap<>();
+    private final AtomicLong polls = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * @param aciService The {@link AciService} used to send IndexerGetStatus
+     * @param settings   Controls polling
+     * @param scheduler  Runs the polls
+     */
+    public IndexCompletionTracker(final AciService aciService, final CompletionTrackerSettings settings, final ScheduledExecutorService scheduler) {
+        this.aciService = aciService;
+        this.settings = settings;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param serverDetails The ACI port of the server which returned the index ID
+     * @param indexId       The index ID returned by the command. This must not be {@link SpoolingIndexingService#SPOOLED}.
+     * @return A future which completes with the final status of the command, or fails with an
+     * {@link IndexingException} if the command failed or a {@link TimeoutException} if it did not finish in time. If
+     * the tracker has been closed the future fails immediately with a {@link RejectedExecutionException}.
+     * @throws IllegalArgumentException If the index ID is negative
+     */
+    public CompletableFuture<Integer> track(final AciServerDetails serverDetails, final int indexId) {
+        if (indexId < 0) {
+            throw new IllegalArgumentException("Not an index ID: " + indexId);
+        }
+
+        if (closed) {
+            return rejected();
+        }
+
+        final Server server = servers.computeIfAbsent(key(serverDetails), key -> new Server(serverDetails));
+        final Tracked tracked = new Tracked(System.nanoTime() + settings.getTimeout().toNanos());
+
+        final Tracked existing = server.pending.putIfAbsent(indexId, tracked);
+
+        if (closed) {
+            // close may have run before the ID was added, so nothing would ever complete it
+            server.poller.cancel(false);
+
+            if (server.pending.remove(indexId, tracked)) {
+                return rejected();
+            }
+        }
+
+        return existing == null ? tracked.future : existing.future;
+    }
+
+    /**
+     * @return The number of index IDs which have not yet finished or failed
+     */
+    public int getPending() {
+        return servers.values().stream().mapToInt(server -> server.pending.size()).sum();
+    }
+
+    /**
+     * @return The number of IndexerGetStatus actions sent
+     */
+    public long getPolls() {
+        return polls.get();
+    }
+
+    /**
+     * Stops polling and cancels the futures of every pending index ID. Index IDs tracked afterwards are rejected.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (final Server server : servers.values()) {
+            server.poller.cancel(false);
+            server.pending.values().forEach(tracked -> tracked.future.cancel(false));
+            server.pending.clear();
+        }
+    }
+
+    private void poll(final Server server) {
+        final long now = System.nanoTime();
+        final List<Integer> indexIds = new ArrayList<>();
+
+        for (final Iterator<Map.Entry<Integer, Tracked>> iterator = server.pending.entrySet().iterator(); iterator.hasNext(); ) {
+            final Map.Entry<Integer, Tracked> entry = iterator.next();
+            final Tracked tracked = entry.getValue();
+
+            if (tracked.future.isDone()) {
+                // cancelled by the caller
+                iterator.remove();
+            } else if (now - tracked.deadline > 0) {
+                iterator.remove();
+                tracked.future.completeExceptionally(new TimeoutException("Index ID " + entry.getKey() + " did not finish within " + settings.getTimeout()));
+            } else {
+                indexIds.add(entry.getKey());
+            }
+        }
+
+        for (int start = 0; start < indexIds.size(); start += settings.getMaxIdsPerPoll()) {
+            final List<Integer> batch = indexIds.subList(start, Math.min(indexIds.size(), start + settings.getMaxIdsPerPoll()));
+
+            try {
+                update(server, aciService.executeAction(server.serverDetails, parameters(batch), PROCESSOR));
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Failed to get the index status from {}:{}; will try again", server.serverDetails.getHost(), server.serverDetails.getPort(), e);
+                return;
+            }
+        }
+    }
+
+    private void update(final Server server, final Map<Integer, Integer> statuses) {
+        polls.incrementAndGet();
+
+        statuses.forEach((indexId, status) -> {
+            if (settings.getFinishedStatuses().contains(status)) {
+                complete(server, indexId).ifPresent(tracked -> tracked.future.complete(status));
+            } else if (!settings.isPending(status)) {
+                complete(server, indexId).ifPresent(tracked -> tracked.future.completeExceptionally(
+                        new IndexingException("Index ID " + indexId + " failed with status " + status)
+                ));
+            }
+        });
+    }
+
+    private static CompletableFuture<Integer> rejected() {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        future.completeExceptionally(new RejectedExecutionException("The completion tracker has been closed"));
+        return future;
+    }
+
+    private static Optional<Tracked> complete(final Server server, final int indexId) {
+        return Optional.ofNullable(server.pending.remove(indexId));
+    }
+
+    private static ActionParameters parameters(final List<Integer> indexIds) {
+        final ActionParameters parameters = new ActionParameters(INDEXER_GET_STATUS);
+        parameters.add("IndexID", indexIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        return parameters;
+    }
+
+    private static String key(final AciServerDetails serverDetails) {
+        return serverDetails.getProtocol() + "://" + serverDetails.getHost() + ':' + serverDetails.getPort();
+    }
+
+    private class Server {
+        private final AciServerDetails serverDetails;
+        private final ConcurrentMap<Integer, Tracked> pending = new ConcurrentHashMap<>();
+        private final ScheduledFuture<?> poller;
+
+        private Server(final AciServerDetails serverDetails) {
+            this.serverDetails = serverDetails;
+
+            final long interval = settings.getPollInterval().toNanos();
+            poller = scheduler.scheduleWithFixedDelay(() -> poll(this), interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static class Tracked {
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private final long deadline;
+
+        private Tracked(final long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+/**
+ * Reports how many commands are waiting in a server's index queue
+ */
+@FunctionalInterface
+public interface IndexQueueDepthProbe {
+
+    /**
+     * @return The number of commands which have not yet been indexed
+     * @throws RuntimeException If the server cannot be contacted
+     */
+    int getQueueDepth();
+}
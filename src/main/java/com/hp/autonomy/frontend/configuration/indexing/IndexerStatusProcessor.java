@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the status of each index ID from an IndexerGetStatus response
+ */
+class IndexerStatusProcessor implements Processor<Map<Integer, Integer>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    @Override
+    public Map<Integer, Integer> process(final AciResponseInputStream aciResponse) {
+        return parse(aciResponse);
+    }
+
+    // package-private for testing
+    static Map<Integer, Integer> parse(final InputStream response) {
+        final Map<Integer, Integer> statuses = new HashMap<>();
+        XMLStreamReader reader = null;
+
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(response);
+            String indexId = null;
+            String status = null;
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    if (reader.getEventType() == XMLStreamConstants.END_ELEMENT && "item".equals(reader.getLocalName())) {
+                        if (indexId != null && status != null) {
+                            statuses.put(Integer.valueOf(indexId.trim()), Integer.valueOf(status.trim()));
+                        }
+
+                        indexId = null;
+                        status = null;
+                    }
+
+                    continue;
+                }
+
+                switch (reader.getLocalName()) {
+                    case "response":
+                        if ("ERROR".equals(reader.getElementText().trim())) {
+                            throw new AciServiceException("IndexerGetStatus returned an error");
+                        }
+                        break;
+                    case "id":
+                        indexId = reader.getElementText();
+                        break;
+                    case "status":
+                        status = reader.getElementText();
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            return statuses;
+        } catch (final XMLStreamException | NumberFormatException e) {
+            throw new AciServiceException("Unable to read IndexerGetStatus response", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final XMLStreamException ignored) {
+                    // nothing useful can be done
+                }
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+
+import java.util.Map;
+
+/**
+ * {@link IndexQueueDepthProbe} which counts the pending commands listed by IndexerGetStatus
+ */
+public class IndexerStatusQueueDepthProbe implements IndexQueueDepthProbe {
+
+    private static final IndexerStatusProcessor PROCESSOR = new IndexerStatusProcessor();
+
+    private final AciService aciService;
+    private final AciServerDetails serverDetails;
+    private final CompletionTrackerSettings statuses;
+
+    /**
+     * @param aciService    The {@link AciService} used to send IndexerGetStatus
+     * @param serverDetails The ACI port of the server whose queue is measured
+     * @param statuses      Decides which statuses are pending
+     */
+    public IndexerStatusQueueDepthProbe(final AciService aciService, final AciServerDetails serverDetails, final CompletionTrackerSettings statuses) {
+        this.aciService = aciService;
+        this.serverDetails = serverDetails;
+        this.statuses = statuses;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        final Map<Integer, Integer> indexStatuses = aciService.executeAction(serverDetails, new ActionParameters("IndexerGetStatus"), PROCESSOR);
+        return (int) indexStatuses.values().stream().filter(statuses::isPending).count();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Controls when a {@link QueueDepthThrottle} pauses and resumes indexing
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class QueueDepthSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final QueueDepthSettings DEFAULT = builder().build();
+
+    /**
+     * @return The time between measurements of the queue depth
+     */
+    @Builder.Default
+    private final Duration pollInterval = Duration.ofSeconds(5);
+
+    /**
+     * @return The queue depth at or above which indexing is paused
+     */
+    @Builder.Default
+    private final int highWaterMark = 1000;
+
+    /**
+     * @return The queue depth at or below which paused indexing resumes
+     */
+    @Builder.Default
+    private final int lowWaterMark = 200;
+
+    /**
+     * @return The longest time a command waits for paused indexing to resume before it is rejected
+     */
+    @Builder.Default
+    private final Duration maxWait = Duration.ofMinutes(5);
+
+    /**
+     * @return The number of measurements in a row which may fail while indexing is paused before it resumes anyway
+     */
+    @Builder.Default
+    private final int maxFailedMeasurements = 3;
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses indexing while a server's index queue is too deep.
+ * <p>
+ * The queue depth is measured on a fixed interval. Indexing pauses when the depth reaches the high water mark and
+ * resumes once it falls to the low water mark, so that it does not flap around a single threshold. If the depth cannot
+ * be measured, the last decision stands until {@link QueueDepthSettings#getMaxFailedMeasurements()} measurements in a
+ * row have failed; paused indexing then resumes, so that commands fail against the unavailable server rather than
+ * each waiting for the maximum wait.
+ */
+public class QueueDepthThrottle implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueDepthThrottle.class);
+
+    private final IndexQueueDepthProbe probe;
+    private final QueueDepthSettings settings;
+    private final ScheduledFuture<?> poller;
+
+    private final Object lock = new Object();
+    private boolean paused;
+    private int queueDepth = -1;
+    private int failedMeasurements;
+    private long pauses;
+
+    /**
+     * @param probe     Measures the queue depth
+     * @param settings  Controls when indexing pauses and resumes
+     * @param scheduler Runs the measurements
+     */
+    public QueueDepthThrottle(final IndexQueueDepthProbe probe, final QueueDepthSettings settings, final ScheduledExecutorService scheduler) {
+        this.probe = probe;
+        this.settings = settings;
+
+        poller = scheduler.scheduleWithFixedDelay(this::poll, 0, settings.getPollInterval().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits until indexing is not paused, for at most {@link QueueDepthSettings#getMaxWait()}
+     *
+     * @return True if indexing may continue, false if it was still paused when the wait ended
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitResume() throws InterruptedException {
+        final long deadline = System.nanoTime() + settings.getMaxWait().toNanos();
+
+        synchronized (lock) {
+            while (paused) {
+                final long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return True if indexing is paused
+     */
+    public boolean isPaused() {
+        synchronized (lock) {
+            return paused;
+        }
+    }
+
+    /**
+     * @return The most recent queue depth, or -1 if it has not been measured
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return queueDepth;
+        }
+    }
+
+    /**
+     * @return The number of times indexing has been paused
+     */
+    public long getPauses() {
+        synchronized (lock) {
+            return pauses;
+        }
+    }
+
+    /**
+     * Stops measuring the queue depth and releases any waiting threads
+     */
+    @Override
+    public void close() {
+        poller.cancel(false);
+
+        synchronized (lock) {
+            paused = false;
+            lock.notifyAll();
+        }
+    }
+
+    private void poll() {
+        final int depth;
+
+        try {
+            depth = probe.getQueueDepth();
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Unable to measure the index queue depth", e);
+
+            synchronized (lock) {
+                failedMeasurements++;
+
+                if (paused && failedMeasurements >= settings.getMaxFailedMeasurements()) {
+                    LOGGER.warn("Index queue depth could not be measured {} times in a row; resuming indexing", failedMeasurements);
+                    paused = false;
+                    lock.notifyAll();
+                }
+            }
+
+            return;
+        }
+
+        synchronized (lock) {
+            queueDepth = depth;
+            failedMeasurements = 0;
+
+            if (!paused && depth >= settings.getHighWaterMark()) {
+                LOGGER.info("Index queue depth {} reached the high water mark; pausing indexing", depth);
+                paused = true;
+                pauses++;
+            } else if (paused && depth <= settings.getLowWaterMark()) {
+                LOGGER.info("Index queue depth {} fell to the low water mark; resuming indexing", depth);
+                paused = false;
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Describes how documents move between shards when a {@link ShardedIndexingService} gains shards. Documents which
+ * have moved must be indexed into their new shard and deleted from their old one by the caller.
+ */
+@Getter
+@ToString(exclude = {"before", "after"})
+public class RebalanceReport {
+
+    /**
+     * @return The fraction of documents owned by each shard before the change, keyed by host:indexPort
+     */
+    private final Map<String, Double> ownershipBefore;
+
+    /**
+     * @return The fraction of documents owned by each shard after the change, keyed by host:indexPort
+     */
+    private final Map<String, Double> ownershipAfter;
+
+    /**
+     * @return The fraction of all documents which belong to a different shard after the change
+     */
+    private final double movedFraction;
+
+    @Getter(AccessLevel.NONE)
+    private final ConsistentHashRing before;
+
+    @Getter(AccessLevel.NONE)
+    private final ConsistentHashRing after;
+
+    RebalanceReport(final ConsistentHashRing before, final ConsistentHashRing after) {
+        this.before = before;
+        this.after = after;
+
+        ownershipBefore = before.getOwnership();
+        ownershipAfter = after.getOwnership();
+        movedFraction = before.getMovedFraction(after);
+    }
+
+    /**
+     * @param reference The reference of a document
+     * @return True if the document belongs to a different shard after the change
+     */
+    public boolean isMoved(final String reference) {
+        return !before.get(reference).equals(after.get(reference));
+    }
+
+    /**
+     * @param reference The reference of a document
+     * @return The shard which owned the document before the change, as host:indexPort
+     */
+    public String getPreviousShard(final String reference) {
+        return before.get(reference);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.aci.AbstractConfigurableIndexingService;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableIndexingService;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Spreads documents across several standard engines without a DIH.
+ * <p>
+ * Each document is routed to a shard by consistent hashing on its reference, so replacing or deleting a document
+ * reaches the shard which indexed it. Every shard has its own {@link BatchingIndexWriter}, and batches are sent on the
+ * given executor, so shards are written to in parallel while each shard receives its commands in order. Adding shards moves only the share of documents taken by the
+ * new shards; the returned {@link RebalanceReport} identifies them.
+ */
+public class ShardedIndexingService implements Closeable {
+
+    private final IndexingService indexingService;
+    private final ShardingSettings settings;
+    private final ScheduledExecutorService executor;
+
+    private volatile Shards shards;
+    private boolean closed;
+
+    /**
+     * @param indexingService The {@link IndexingService} used to send commands
+     * @param shards          The servers to index into, which must have index ports
+     * @param settings        Controls hashing and batching
+     * @param executor        Sends batches to the shards
+     */
+    public ShardedIndexingService(
+            final IndexingService indexingService,
+            final List<ServerConfig> shards,
+            final ShardingSettings settings,
+            final ScheduledExecutorService executor
+    ) {
+        this.indexingService = indexingService;
+        this.settings = settings;
+        this.executor = executor;
+
+        this.shards = new Shards(withShards(Collections.emptyMap(), shards));
+    }
+
+    /**
+     * @param command   The index command, for example DREADDDATA or DREREPLACE
+     * @param database  The database to index the document into
+     * @param reference The reference of the document, which decides its shard
+     * @param document  The document, in the format expected by the {@link BatchCommandFactory}
+     * @return A future which completes with the index ID of the batch containing the document on its shard
+     */
+    public CompletableFuture<Integer> add(final String command, final String database, final String reference, final String document) {
+        return shard(reference).writer.add(command, database, document);
+    }
+
+    /**
+     * Sends a command to the shard which owns a document, for example a DREDELETEREF. The shard's pending batches are
+     * sent first, so the command does not overtake documents already added.
+     *
+     * @param reference The reference of the document
+     * @param command   The command to send
+     * @return The index ID returned by the shard
+     * @throws IndexingException If the command fails
+     */
+    public int executeCommand(final String reference, final IndexCommand command) throws IndexingException {
+        return shard(reference).writer.executeCommand(command);
+    }
+
+    /**
+     * @param reference The reference of a document
+     * @return The server which owns the document
+     */
+    public ServerConfig getShard(final String reference) {
+        return shard(reference).config;
+    }
+
+    /**
+     * Adds shards, which take over part of the documents of the existing shards. Documents already indexed are not
+     * moved.
+     *
+     * @param newShards The servers to add, which must have index ports
+     * @return Which documents now belong to a different shard
+     * @throws IllegalArgumentException If a server is already a shard
+     * @throws IllegalStateException    If the service has been closed
+     */
+    public synchronized RebalanceReport addShards(final List<ServerConfig> newShards) {
+        if (closed) {
+            throw new IllegalStateException("The sharded indexing service has been closed");
+        }
+
+        final Shards current = shards;
+        final Shards updated = new Shards(withShards(current.byName, newShards));
+
+        shards = updated;
+        return new RebalanceReport(current.ring, updated.ring);
+    }
+
+    /**
+     * Sends every shard's batches without waiting for them to fill
+     */
+    public void flush() {
+        shards.byName.values().forEach(shard -> shard.writer.flush());
+    }
+
+    /**
+     * Sends every shard's batches and stops accepting documents
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        shards.byName.values().forEach(shard -> shard.writer.close());
+    }
+
+    private Shard shard(final String reference) {
+        final Shards current = shards;
+        return current.byName.get(current.ring.get(reference));
+    }
+
+    private Map<String, Shard> withShards(final Map<String, Shard> existing, final List<ServerConfig> newShards) {
+        final Map<String, Shard> byName = new LinkedHashMap<>(existing);
+
+        for (final ServerConfig config : newShards) {
+            if (config.getIndexPort() == null) {
+                throw new IllegalArgumentException("Shard " + config.getHost() + " has no index port");
+            }
+
+            final String name = config.getHost() + ':' + config.getIndexPort();
+
+            if (byName.containsKey(name)) {
+                throw new IllegalArgumentException(name + " is already a shard");
+            }
+
+            byName.put(name, new Shard(config));
+        }
+
+        return byName;
+    }
+
+    private class Shards {
+        private final Map<String, Shard> byName;
+        private final ConsistentHashRing ring;
+
+        private Shards(final Map<String, Shard> byName) {
+            this.byName = byName;
+            ring = new ConsistentHashRing(byName.keySet(), settings.getVirtualNodes());
+        }
+    }
+
+    private class Shard {
+        private final ServerConfig config;
+        private final BatchingIndexWriter writer;
+
+        private Shard(final ServerConfig config) {
+            this.config = config;
+
+            final ServerDetails serverDetails = config.toServerDetails();
+            final ConfigurableIndexingService service = new AbstractConfigurableIndexingService(indexingService) {
+                @Override
+                public ServerDetails getServerDetails() {
+                    return serverDetails;
+                }
+            };
+
+            writer = new BatchingIndexWriter(service, settings.getBatchSettings(), executor);
+        }
+    }
+}
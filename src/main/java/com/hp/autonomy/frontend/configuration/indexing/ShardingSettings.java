@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Controls how a {@link ShardedIndexingService} spreads documents and batches them for each shard
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class ShardingSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final ShardingSettings DEFAULT = builder().build();
+
+    /**
+     * @return The number of points each shard has on the hash ring. More points spread documents more evenly.
+     */
+    @Builder.Default
+    private final int virtualNodes = 128;
+
+    /**
+     * @return Controls when the documents for each shard are sent
+     */
+    @Builder.Default
+    private final BatchSettings batchSettings = BatchSettings.DEFAULT;
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.indexing.IndexingException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Controls how {@link SpoolingIndexingService} stores and replays spooled commands
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class SpoolSettings {
+
+    /**
+     * The settings used when none are supplied
+     */
+    public static final SpoolSettings DEFAULT = builder().build();
+
+    /**
+     * @return The largest number of spooled commands sent to each target each second once it has recovered
+     */
+    @Builder.Default
+    private final double replayRate = 50;
+
+    /**
+     * @return The time to wait before replaying again after the target was found to be unavailable
+     */
+    @Builder.Default
+    private final Duration retryInterval = Duration.ofSeconds(5);
+
+    /**
+     * @return The size of each spool segment file, which limits the size of a command
+     */
+    @Builder.Default
+    private final int segmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * @return Whether to flush every spooled command to the disk
+     */
+    @Builder.Default
+    private final boolean force = false;
+
+    /**
+     * @return Decides whether a spooled command which the target rejected is moved to the dead letter file. By
+     * default no command is moved, and a rejected command is retried after the retry interval, since a server can
+     * reject commands while it is starting.
+     */
+    @Builder.Default
+    private final Predicate<IndexingException> deadLetterRejected = e -> false;
+}
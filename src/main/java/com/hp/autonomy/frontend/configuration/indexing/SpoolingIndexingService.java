@@ -0,0 +1,335 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.aci.CircuitBreakerOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link IndexingService} which writes commands to an {@link IndexCommandSpool} when the target cannot be reached,
+ * and replays them in order at a limited rate once it recovers.
+ * <p>
+ * Pass this to an {@link com.hp.autonomy.frontend.configuration.aci.AbstractConfigurableIndexingService} so that
+ * producers keep running while the index tier restarts. A target is unavailable when a command fails because of an
+ * {@link IOException} or an open circuit breaker; wrap a
+ * {@link com.hp.autonomy.frontend.configuration.aci.CircuitBreakingIndexingService} to also spool while the target is
+ * slow. Each target has its own spool in a subdirectory of the spool directory, so one target being down does not hold
+ * up commands for the others. While any commands are spooled for a target, new commands for it are spooled behind them
+ * to preserve their order. Commands without server details are passed straight through.
+ * <p>
+ * Spooled commands return {@link #SPOOLED} instead of an index ID. They are given an index ID when they are replayed,
+ * which is logged at debug level but cannot be returned to the caller, so they cannot be passed to an
+ * {@link IndexCompletionTracker}. Use {@link #getPending()} to tell when every spooled command has been sent, and
+ * {@link #getReplayed()} and {@link #getDeadLettered()} to tell how many were accepted.
+ * <p>
+ * Spooled commands which are corrupt or cannot be decoded are moved to the dead letter file of their spool, as are
+ * rejected commands if {@link SpoolSettings#getDeadLetterRejected()} allows it; other rejected commands are retried.
+ */
+public class SpoolingIndexingService implements IndexingService, Closeable {
+
+    /**
+     * Returned instead of an index ID when a command is spooled. Index IDs are never negative.
+     */
+    public static final int SPOOLED = -1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpoolingIndexingService.class);
+
+    private final IndexingService indexingService;
+    private final Path directory;
+    private final IndexCommandCodec codec;
+    private final SpoolSettings settings;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> replayer;
+
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private boolean closed;
+
+    /**
+     * @param indexingService The {@link IndexingService} used to send commands
+     * @param directory       The directory holding a spool for each target, which is created if necessary. Commands
+     *                        spooled by an earlier instance are replayed.
+     * @param codec           Converts commands to and from bytes
+     * @param settings        Controls spooling and replay
+     * @param scheduler       Runs the replay
+     * @throws IOException If an existing spool cannot be opened
+     */
+    public SpoolingIndexingService(
+            final IndexingService indexingService,
+            final Path directory,
+            final IndexCommandCodec codec,
+            final SpoolSettings settings,
+            final ScheduledExecutorService scheduler
+    ) throws IOException {
+        this.indexingService = indexingService;
+        this.directory = Files.createDirectories(directory);
+        this.codec = codec;
+        this.settings = settings;
+
+        try (final DirectoryStream<Path> spools = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (final Path spool : spools) {
+                lanes.put(spool.getFileName().toString(), new Lane(spool));
+            }
+        }
+
+        final long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.getReplayRate());
+        replayer = scheduler.scheduleWithFixedDelay(this::replay, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        return indexingService.executeCommand(command);
+    }
+
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        final Lane existing = lanes.get(laneName(serverDetails));
+
+        if (existing != null && !existing.spool.isEmpty()) {
+            return existing.spool(serverDetails, command);
+        }
+
+        try {
+            return indexingService.executeCommand(serverDetails, command);
+        } catch (final IndexingException e) {
+            if (!isUnavailable(e)) {
+                throw e;
+            }
+
+            LOGGER.warn("Unable to reach {}:{}; spooling index commands", serverDetails.getHost(), serverDetails.getPort());
+            final Lane lane = lane(serverDetails);
+            lane.resumeAt = System.nanoTime() + settings.getRetryInterval().toNanos();
+            return lane.spool(serverDetails, command);
+        }
+    }
+
+    /**
+     * @return The number of commands which were spooled
+     */
+    public long getSpooled() {
+        return spooled.get();
+    }
+
+    /**
+     * @return The number of spooled commands which have been sent
+     */
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    /**
+     * @return The number of spooled commands which were moved to a dead letter file instead of being sent
+     */
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    /**
+     * @return The number of spooled commands waiting to be sent, across all targets
+     */
+    public long getPending() {
+        return lanes.values().stream().mapToLong(lane -> lane.spool.getPending()).sum();
+    }
+
+    /**
+     * Stops replaying spooled commands and closes the spools. Spooled commands are kept for the next instance.
+     *
+     * @throws IOException If a spool cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        replayer.cancel(false);
+
+        synchronized (lanes) {
+            closed = true;
+
+            for (final Lane lane : lanes.values()) {
+                lane.spool.close();
+            }
+        }
+    }
+
+    private Lane lane(final ServerDetails serverDetails) {
+        final String name = laneName(serverDetails);
+
+        synchronized (lanes) {
+            Lane lane = lanes.get(name);
+
+            if (lane == null) {
+                if (closed) {
+                    throw new IndexingException("Unable to spool index command; the spooling service is closed");
+                }
+
+                try {
+                    lane = new Lane(directory.resolve(name));
+                } catch (final IOException e) {
+                    throw new IndexingException("Unable to create spool for " + serverDetails.getHost() + ':' + serverDetails.getPort(), e);
+                }
+
+                lanes.put(name, lane);
+            }
+
+            return lane;
+        }
+    }
+
+    private void replay() {
+        for (final Lane lane : lanes.values()) {
+            try {
+                lane.replay();
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error("Unable to replay spooled index commands", e);
+                lane.resumeAt = System.nanoTime() + settings.getRetryInterval().toNanos();
+            }
+        }
+    }
+
+    private byte[] encode(final ServerDetails serverDetails, final IndexCommand command) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(serverDetails.getProtocol().name());
+            output.writeUTF(serverDetails.getHost());
+            output.writeInt(serverDetails.getPort());
+            output.write(codec.encode(command));
+        } catch (final IOException e) {
+            // not thrown by ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static String laneName(final ServerDetails serverDetails) {
+        try {
+            // host names can contain characters which are not allowed in file names, such as the colons of IPv6 addresses
+            return serverDetails.getProtocol() + "_" + URLEncoder.encode(serverDetails.getHost(), "UTF-8") + '_' + serverDetails.getPort();
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    private static boolean isUnavailable(final IndexingException e) {
+        return e.getCause() instanceof IOException || e.getCause() instanceof CircuitBreakerOpenException;
+    }
+
+    private class Lane {
+        private final IndexCommandSpool spool;
+        private volatile long resumeAt = System.nanoTime();
+
+        private Lane(final Path directory) throws IOException {
+            spool = new IndexCommandSpool(directory, settings.getSegmentBytes(), settings.isForce());
+        }
+
+        private int spool(final ServerDetails serverDetails, final IndexCommand command) {
+            try {
+                spool.append(encode(serverDetails, command));
+            } catch (final IOException e) {
+                throw new IndexingException("Unable to spool index command", e);
+            }
+
+            spooled.incrementAndGet();
+            return SPOOLED;
+        }
+
+        private void replay() throws IOException {
+            if (System.nanoTime() - resumeAt < 0) {
+                return;
+            }
+
+            final byte[] record;
+
+            try {
+                record = spool.peek();
+            } catch (final IllegalStateException e) {
+                LOGGER.error("Moving corrupt spooled index command to the dead letter file", e);
+                deadLetter();
+                return;
+            }
+
+            if (record == null) {
+                return;
+            }
+
+            final ServerDetails serverDetails = new ServerDetails();
+            final IndexCommand command;
+
+            try {
+                final DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+                serverDetails.setProtocol(ServerDetails.TransportProtocol.valueOf(input.readUTF()));
+                serverDetails.setHost(input.readUTF());
+                serverDetails.setPort(input.readInt());
+
+                final byte[] commandBytes = new byte[input.available()];
+                input.readFully(commandBytes);
+                command = codec.decode(commandBytes);
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error("Moving undecodable spooled index command to the dead letter file", e);
+                deadLetter();
+                return;
+            }
+
+            try {
+                final int indexId = indexingService.executeCommand(serverDetails, command);
+                LOGGER.debug("Replayed spooled index command to {}:{} as index ID {}", serverDetails.getHost(), serverDetails.getPort(), indexId);
+                replayed.incrementAndGet();
+                spool.advance();
+            } catch (final IndexingException e) {
+                if (isUnavailable(e) || !settings.getDeadLetterRejected().test(e)) {
+                    LOGGER.debug("Unable to replay spooled index command to {}:{}", serverDetails.getHost(), serverDetails.getPort(), e);
+                    resumeAt = System.nanoTime() + settings.getRetryInterval().toNanos();
+                    return;
+                }
+
+                LOGGER.warn("Moving spooled index command rejected by {}:{} to the dead letter file", serverDetails.getHost(), serverDetails.getPort(), e);
+                deadLetter();
+                return;
+            }
+
+            spool.compact();
+        }
+
+        private void deadLetter() throws IOException {
+            spool.deadLetter();
+            deadLettered.incrementAndGet();
+            spool.compact();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+
+/**
+ * {@link IndexingService} which holds commands back while a {@link QueueDepthThrottle} has paused indexing.
+ * <p>
+ * Pass this to an {@link com.hp.autonomy.frontend.configuration.aci.AbstractConfigurableIndexingService} to protect
+ * query performance on the server whose queue the throttle measures. Commands which wait longer than
+ * {@link QueueDepthSettings#getMaxWait()} fail with an {@link IndexingException}.
+ */
+public class ThrottlingIndexingService implements IndexingService {
+
+    private final IndexingService indexingService;
+    private final QueueDepthThrottle throttle;
+
+    /**
+     * @param indexingService The {@link IndexingService} used to send commands
+     * @param throttle        Decides when indexing is paused
+     */
+    public ThrottlingIndexingService(final IndexingService indexingService, final QueueDepthThrottle throttle) {
+        this.indexingService = indexingService;
+        this.throttle = throttle;
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        awaitResume();
+        return indexingService.executeCommand(command);
+    }
+
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        awaitResume();
+        return indexingService.executeCommand(serverDetails, command);
+    }
+
+    private void awaitResume() {
+        try {
+            if (!throttle.awaitResume()) {
+                throw new IndexingException("Index queue depth " + throttle.getQueueDepth() + " did not fall to the low water mark in time");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException("Interrupted while waiting for the index queue to drain");
+        }
+    }
+}
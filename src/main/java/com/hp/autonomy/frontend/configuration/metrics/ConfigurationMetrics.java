@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.metrics;
+
+/**
+ * Receives timings and outcomes from server validation, port discovery and Community lookups, so that they can be
+ * bridged to a metrics library. Every method does nothing by default; {@link #NOOP} is used when no metrics are
+ * configured.
+ * <p>
+ * Implementations are called on the validating threads, so should be thread safe and should not block.
+ */
+public interface ConfigurationMetrics {
+
+    /**
+     * Discards all metrics
+     */
+    ConfigurationMetrics NOOP = new ConfigurationMetrics() {
+    };
+
+    /**
+     * Records how long a step took, whether or not it succeeded
+     *
+     * @param tags          Identifies the component and server
+     * @param step          The step, for example a {@link com.hp.autonomy.frontend.configuration.server.ValidationPhase} name
+     * @param durationNanos The time taken in nanoseconds
+     */
+    default void recordStep(final MetricTags tags, final String step, final long durationNanos) {
+    }
+
+    /**
+     * Counts the outcome of an operation
+     *
+     * @param tags    Identifies the component and server
+     * @param outcome The outcome, for example VALID or a validation error code
+     */
+    default void recordOutcome(final MetricTags tags, final String outcome) {
+    }
+}
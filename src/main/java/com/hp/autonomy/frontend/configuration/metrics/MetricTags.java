@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.metrics;
+
+import lombok.Data;
+
+/**
+ * Tags attached to every metric recorded through {@link ConfigurationMetrics}
+ */
+@Data
+public class MetricTags {
+    /**
+     * @return The component recording the metric, for example ServerConfig or CommunityService
+     */
+    private final String component;
+
+    /**
+     * @return The expected product types of the server as a comma separated list, or the product type regex
+     */
+    private final String productType;
+
+    /**
+     * @return The host of the server
+     */
+    private final String host;
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking validations on an {@link Executor}, exposing them as {@link CompletableFuture}s which can be
+ * cancelled and which fail with a {@link TimeoutException} if they do not complete before a deadline.
+ */
+final class AsyncValidation {
+
+    private static final ScheduledExecutorService DEADLINE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "validation-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AsyncValidation() {
+    }
+
+    /**
+     * @param validation The blocking validation to run
+     * @param executor   The {@link Executor} to run the validation on
+     * @param deadline   The maximum time to wait for the validation, or null to wait indefinitely
+     * @param <T>        The type of the result, usually a {@link ValidationResult}
+     * @return A future which completes with the result of the validation. Cancelling the future, or the deadline
+     * expiring, will interrupt the validation.
+     */
+    static <T> CompletableFuture<T> supply(final Supplier<T> validation, final Executor executor, final Duration deadline) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(validation.get());
+            } catch (final RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, null);
+
+        result.whenComplete((validationResult, throwable) -> {
+            // only cancellation and the deadline complete the future from outside the task
+            if (throwable instanceof CancellationException || throwable instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+
+        if (deadline != null) {
+            final ScheduledFuture<?> timeout = DEADLINE_SCHEDULER.schedule(
+                    () -> result.completeExceptionally(new TimeoutException("Validation did not complete within " + deadline)),
+                    deadline.toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+
+            result.whenComplete((validationResult, throwable) -> timeout.cancel(false));
+        }
+
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+}
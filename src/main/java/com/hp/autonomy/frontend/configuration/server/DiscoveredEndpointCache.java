@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent cache of the index and service ports and protocols discovered by {@link ServerConfig}, so that they do not
+ * need to be discovered again each time the application starts.
+ * <p>
+ * Entries are keyed by host, port and product type, and are only used if their fingerprint matches the current
+ * configuration and the product types reported by the server.
+ * <p>
+ * The cache saves port discovery, not the round trips of a validation: a hit skips the GetChildren or GetStatus request
+ * used to find the ports and the probing of each candidate protocol, but the cached endpoints are still probed
+ * synchronously, with one request to the service port and one command to the index port, so that a validation still
+ * fails if the server has stopped responding. If the probe fails the entry is removed and the endpoints are discovered
+ * again. The probe only shows that something responds on the cached ports, so an entry loaded from disk is also
+ * rediscovered once in the background the first time it is used, in case the server's ports have changed; that use
+ * costs a full discovery in addition to the probe.
+ */
+public class DiscoveredEndpointCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiscoveredEndpointCache.class);
+
+    private static final TypeReference<Map<String, DiscoveredEndpoints>> ENTRIES_TYPE = new TypeReference<Map<String, DiscoveredEndpoints>>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, DiscoveredEndpoints> entries = new ConcurrentHashMap<>();
+    private final Set<String> unverified = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final Executor revalidationExecutor;
+
+    /**
+     * @param file                 The file used to persist the cache. It will be read if it exists.
+     * @param revalidationExecutor The {@link Executor} used to revalidate entries loaded from the file
+     */
+    public DiscoveredEndpointCache(final Path file, final Executor revalidationExecutor) {
+        this.file = file;
+        this.revalidationExecutor = revalidationExecutor;
+
+        load();
+    }
+
+    /**
+     * Removes the entry for the given server, so that its ports will be discovered again the next time they are
+     * required. This should be called if a cached endpoint fails when it is used.
+     *
+     * @param serverConfig The server whose entry should be removed
+     */
+    public void invalidate(final ServerConfig serverConfig) {
+        remove(key(serverConfig));
+    }
+
+    /**
+     * @param discovery    Discovers the endpoints if there is no matching entry, or the cached endpoints fail the probe
+     * @param probe        Tests whether the cached endpoints, applied to the server config, are responding
+     * @param revalidation Discovers the endpoints in the background when an entry loaded from disk is first used
+     */
+    ServerConfig fetch(
+            final ServerConfig serverConfig,
+            final Collection<String> serverProductTypes,
+            final Supplier<ServerConfig> discovery,
+            final Predicate<ServerConfig> probe,
+            final Supplier<ServerConfig> revalidation
+    ) {
+        final String key = key(serverConfig);
+        final String fingerprint = fingerprint(serverConfig, serverProductTypes);
+        final DiscoveredEndpoints cached = entries.get(key);
+
+        if (cached != null && fingerprint.equals(cached.getFingerprint())) {
+            final ServerConfig cachedConfig = cached.applyTo(serverConfig);
+
+            if (probe.test(cachedConfig)) {
+                if (unverified.remove(key)) {
+                    revalidate(key, fingerprint, revalidation);
+                }
+
+                return cachedConfig;
+            }
+
+            LOGGER.info("Cached endpoints for {} are not responding; discovering them again", key);
+            remove(key);
+        }
+
+        return discover(key, fingerprint, discovery);
+    }
+
+    private ServerConfig discover(final String key, final String fingerprint, final Supplier<ServerConfig> discovery) {
+        final ServerConfig discovered;
+
+        try {
+            discovered = discovery.get();
+        } catch (final RuntimeException e) {
+            remove(key);
+            throw e;
+        }
+
+        entries.put(key, DiscoveredEndpoints.from(discovered, fingerprint));
+        save();
+
+        return discovered;
+    }
+
+    private void revalidate(final String key, final String fingerprint, final Supplier<ServerConfig> discovery) {
+        try {
+            revalidationExecutor.execute(() -> {
+                try {
+                    discover(key, fingerprint, discovery);
+                } catch (final RuntimeException e) {
+                    LOGGER.warn("Cached endpoints for {} are no longer valid; they will be discovered again on next use", key);
+                    LOGGER.debug("", e);
+                }
+            });
+        } catch (final RejectedExecutionException ignored) {
+            // try again on next use
+            unverified.add(key);
+        }
+    }
+
+    private void remove(final String key) {
+        unverified.remove(key);
+
+        if (entries.remove(key) != null) {
+            save();
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try {
+            final Map<String, DiscoveredEndpoints> loaded = objectMapper.readValue(file.toFile(), ENTRIES_TYPE);
+            entries.putAll(loaded);
+            unverified.addAll(loaded.keySet());
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to read discovered endpoints from {}; servers will be discovered again", file);
+            LOGGER.debug("", e);
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            final Path parent = Files.createDirectories(file.toAbsolutePath().getParent());
+            final Path temporaryFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporaryFile.toFile(), new TreeMap<>(entries));
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to write discovered endpoints to {}", file);
+            LOGGER.debug("", e);
+        }
+    }
+
+    private String key(final ServerConfig serverConfig) {
+        final String productTypes = serverConfig.getProductTypeRegex() != null
+                ? serverConfig.getProductTypeRegex().pattern()
+                : serverConfig.getProductType() == null ? "" : serverConfig.getProductType().stream().map(Enum::name).sorted().collect(Collectors.joining(","));
+
+        return serverConfig.getHost() + ':' + serverConfig.getPort() + ':' + productTypes;
+    }
+
+    private String fingerprint(final ServerConfig serverConfig, final Collection<String> serverProductTypes) {
+        final List<String> sortedProductTypes = new ArrayList<>(serverProductTypes);
+        Collections.sort(sortedProductTypes);
+
+        final String identity = String.join("\n",
+                String.valueOf(serverConfig.getProtocol()),
+                String.valueOf(serverConfig.getIndexErrorMessage()),
+                String.join(",", sortedProductTypes));
+
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The index and service port details discovered for a server, as stored by {@link DiscoveredEndpointCache}
+ */
+@Getter
+@Builder
+@EqualsAndHashCode
+@ToString
+@JsonDeserialize(builder = DiscoveredEndpoints.DiscoveredEndpointsBuilder.class)
+class DiscoveredEndpoints {
+
+    private final ServerDetails.TransportProtocol indexProtocol;
+    private final Integer indexPort;
+    private final AciServerDetails.TransportProtocol serviceProtocol;
+    private final Integer servicePort;
+
+    /**
+     * @return Identifies the configuration and server the endpoints were discovered for
+     */
+    private final String fingerprint;
+
+    static DiscoveredEndpoints from(final ServerConfig serverConfig, final String fingerprint) {
+        return builder()
+                .indexProtocol(serverConfig.getIndexProtocol())
+                .indexPort(serverConfig.getIndexPort())
+                .serviceProtocol(serverConfig.getServiceProtocol())
+                .servicePort(serverConfig.getServicePort())
+                .fingerprint(fingerprint)
+                .build();
+    }
+
+    ServerConfig applyTo(final ServerConfig serverConfig) {
+        return serverConfig.toBuilder()
+                .indexProtocol(indexProtocol)
+                .indexPort(indexPort)
+                .serviceProtocol(serviceProtocol)
+                .servicePort(servicePort)
+                .build();
+    }
+
+    @JsonPOJOBuilder(withPrefix = "")
+    static class DiscoveredEndpointsBuilder {
+    }
+}
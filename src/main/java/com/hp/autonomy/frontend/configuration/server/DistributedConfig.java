@@ -27,6 +27,7 @@ import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigException;
 import com.hp.autonomy.frontend.configuration.ConfigurationComponent;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
+import com.hp.autonomy.frontend.configuration.metrics.MetricTags;
 import com.hp.autonomy.frontend.configuration.validation.OptionalConfigurationComponent;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.types.requests.idol.actions.general.GeneralActions;
@@ -35,7 +36,13 @@ import lombok.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link ConfigurationComponent} for representing an IDOL component which:
@@ -58,6 +65,8 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerConfig.class);
 
+    private static final String COMPONENT = "DistributedConfig";
+
     /**
      * True if the distributed settings are being used; false otherwise
      */
@@ -87,13 +96,39 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
      * @return A DistributedConfig whose index and service ports have been filled in appropriately
      */
     public DistributedConfig fetchServerDetails(final AciService aciService, final IndexingService indexingService, final ProcessorFactory processorFactory) {
+        return fetchServerDetails(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+    }
+
+    /**
+     * Fetches the port details for the currently configured config
+     *
+     * @param aciService       The {@link AciService} to use to test the ACI and service ports
+     * @param indexingService  The {@link IndexingService} to use to test the index port
+     * @param processorFactory Idol response parser generator
+     * @param options          The {@link ServerValidationOptions} controlling how the ports are discovered
+     * @return A DistributedConfig whose index and service ports have been filled in appropriately
+     */
+    public DistributedConfig fetchServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options
+    ) {
         final DistributedConfigBuilder builder = toBuilder();
 
         if (distributed) {
-            builder.dih(dih.fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton(ProductType.DIH.name())));
-            builder.dah(dah.fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton(ProductType.DAH.name())));
+            final CompletableFuture<ServerConfig> dihDetails = AsyncValidation.supply(
+                    () -> dih.fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton(ProductType.DIH.name()), options),
+                    options.getExecutor(), null);
+            final CompletableFuture<ServerConfig> dahDetails = AsyncValidation.supply(
+                    () -> dah.fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton(ProductType.DAH.name()), options),
+                    options.getExecutor(), null);
+            cancelOnFailure(dihDetails, dahDetails);
+
+            builder.dih(join(dihDetails, dahDetails));
+            builder.dah(join(dahDetails, dihDetails));
         } else {
-            builder.standard(standard.fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton(ProductType.AXE.name())));
+            builder.standard(standard.fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton(ProductType.AXE.name()), options));
         }
 
         return builder.build();
@@ -143,40 +178,218 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
      * @see ServerConfig#validate(AciService, IndexingService, ProcessorFactory)
      */
     public ValidationResult<?> validate(final AciService aciService, final IndexingService indexingService, final ProcessorFactory processorFactory) {
+        return validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+    }
+
+    /**
+     * Validates the DistributedConfig, as described in {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory} used to process the responses
+     * @param options          The {@link ServerValidationOptions} controlling how the servers are validated
+     * @return A validation result
+     * @see ServerConfig#validate(AciService, IndexingService, ProcessorFactory, ServerValidationOptions)
+     */
+    public ValidationResult<?> validate(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options
+    ) {
+        return validateServers(aciService, indexingService, processorFactory, options, options.getExecutor()).join();
+    }
+
+    /**
+     * Validates the DistributedConfig without blocking the calling thread
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory} used to process the responses
+     * @param executor         The {@link Executor} used to run the validation
+     * @return A future which completes with the result described in {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Executor executor
+    ) {
+        return validateAsync(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT, executor, null);
+    }
+
+    /**
+     * Validates the DistributedConfig without blocking the calling thread. Cancelling the returned future interrupts
+     * the validation.
+     * <p>
+     * If distributed is true the DIH and DAH are validated as separate tasks on the executor, and no thread waits for
+     * them, so the executor may have a single thread, or be the executor from the options.
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory} used to process the responses
+     * @param options          The {@link ServerValidationOptions} controlling how the servers are validated
+     * @param executor         The {@link Executor} used to run the validation
+     * @param deadline         The maximum time the validation may take, or null for no limit. If the deadline passes the
+     *                         future completes exceptionally with a {@link java.util.concurrent.TimeoutException}.
+     * @return A future which completes with the result described in {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options,
+            final Executor executor,
+            final Duration deadline
+    ) {
+        final CompletableFuture<ValidationResult<?>> result = validateServers(aciService, indexingService, processorFactory, options, executor);
+        return deadline == null ? result : result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // validates the servers as tasks on the executor which are combined when they complete, rather than by a thread
+    // which waits for them; cancelling the returned future, or it timing out, cancels the tasks
+    private CompletableFuture<ValidationResult<?>> validateServers(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options,
+            final Executor executor
+    ) {
+        final boolean isDistributed = Boolean.TRUE.equals(distributed);
+        final ServerConfig entryPoint = isDistributed ? dah : standard;
+        final MetricTags serverTags = entryPoint == null ? null : entryPoint.metricTags();
+        final MetricTags tags = serverTags == null
+                ? new MetricTags(COMPONENT, "", null)
+                : new MetricTags(COMPONENT, serverTags.getProductType(), serverTags.getHost());
+        final long start = System.nanoTime();
+
+        final CompletableFuture<ValidationResult<?>> result = new CompletableFuture<>();
+        final CompletableFuture<ValidationResult<?>> validation;
+
+        if (isDistributed) {
+            // the DIH and DAH are independent, so validate them at the same time
+            final CompletableFuture<ValidationResult<?>> dihValidationFuture = AsyncValidation.supply(
+                    () -> dih.validate(aciService, indexingService, processorFactory, options),
+                    executor, null);
+            final CompletableFuture<DahValidation> dahValidationFuture = AsyncValidation.supply(
+                    () -> validateDah(aciService, indexingService, processorFactory, options, tags),
+                    executor, null);
+            cancelOnFailure(dihValidationFuture, dahValidationFuture);
+
+            result.whenComplete((validationResult, throwable) -> {
+                dihValidationFuture.cancel(true);
+                dahValidationFuture.cancel(true);
+            });
+
+            validation = dihValidationFuture.thenCombine(dahValidationFuture, DistributedConfig::combine);
+        } else {
+            validation = AsyncValidation.supply(() -> standard.validate(aciService, indexingService, processorFactory, options), executor, null);
+            result.whenComplete((validationResult, throwable) -> validation.cancel(true));
+        }
+
+        validation.whenComplete((validationResult, throwable) -> {
+            // a validation which was cancelled or timed out is not recorded
+            if (result.isDone()) {
+                return;
+            }
+
+            if (throwable != null) {
+                LOGGER.debug("Error validating config", throwable);
+            }
+
+            final ValidationResult<?> completed = throwable == null
+                    ? validationResult
+                    : new ValidationResult<>(false, ServerConfig.Validation.FETCH_PORT_ERROR);
+
+            options.getMetrics().recordStep(tags, isDistributed ? "DISTRIBUTED" : "STANDARD", System.nanoTime() - start);
+            options.getMetrics().recordOutcome(tags, ServerConfig.outcome(completed));
+            result.complete(completed);
+        });
+
+        return result;
+    }
+
+    private static ValidationResult<?> combine(final ValidationResult<?> dihValidation, final DahValidation dahValidation) {
+        final DistributedValidationResultDetails distributedValidationResultDetails = new DistributedValidationResultDetails();
+
+        if (!dihValidation.isValid()) {
+            distributedValidationResultDetails.setDihValidationResult(dihValidation);
+        }
+
+        if (dahValidation.report) {
+            distributedValidationResultDetails.setDahValidationResult(dahValidation.result);
+        }
+
+        return new ValidationResult<Object>(dihValidation.isValid() && dahValidation.result.isValid(), distributedValidationResultDetails);
+    }
+
+    private DahValidation validateDah(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options,
+            final MetricTags tags
+    ) {
+        final ValidationResult<?> dahValidation = dah.validate(aciService, indexingService, processorFactory, options);
+
+        if (!dahValidation.isValid()) {
+            return new DahValidation(dahValidation, true);
+        }
+
+        final long start = System.nanoTime();
+
         try {
-            if (distributed) {
-                final DistributedValidationResultDetails distributedValidationResultDetails = new DistributedValidationResultDetails();
-
-                final ValidationResult<?> dihValidation = dih.validate(aciService, indexingService, processorFactory);
-                final ValidationResult<?> dahValidation = dah.validate(aciService, indexingService, processorFactory);
-
-                final boolean dihValid = dihValidation.isValid();
-                boolean dahValid = dahValidation.isValid();
-
-                if (!dihValidation.isValid()) {
-                    distributedValidationResultDetails.setDihValidationResult(dihValidation);
-                }
-
-                if (dahValidation.isValid()) {
-                    try {
-                        aciService.executeAction(dah.toAciServerDetails(),
-                                new ActionParameters(GeneralActions.LanguageSettings.name()),
-                                processorFactory.getVoidProcessor());
-                    } catch (final AciErrorException ignored) {
-                        LOGGER.warn("Failed to run DAH action=LanguageSettings; will fallback to using first language from action=GetStatus as default language.");
-                        distributedValidationResultDetails.setDahValidationResult(dahValidation);
-                    }
-                } else {
-                    distributedValidationResultDetails.setDahValidationResult(dahValidation);
-                }
-
-                return new ValidationResult<Object>(dihValid && dahValid, distributedValidationResultDetails);
-            } else {
-                return standard.validate(aciService, indexingService, processorFactory);
+            aciService.executeAction(dah.toAciServerDetails(),
+                    new ActionParameters(GeneralActions.LanguageSettings.name()),
+                    processorFactory.getVoidProcessor());
+        } catch (final AciErrorException ignored) {
+            LOGGER.warn("Failed to run DAH action=LanguageSettings; will fallback to using first language from action=GetStatus as default language.");
+            return new DahValidation(dahValidation, true);
+        } finally {
+            options.getMetrics().recordStep(tags, "LANGUAGE_SETTINGS", System.nanoTime() - start);
+        }
+
+        return new DahValidation(dahValidation, false);
+    }
+
+    // the result is failed if either leg fails, so there is no point waiting for the other one
+    private static void cancelOnFailure(final CompletableFuture<?> first, final CompletableFuture<?> second) {
+        first.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                second.cancel(true);
             }
-        } catch (final RuntimeException e) {
-            LOGGER.debug("Error validating config", e);
-            return new ValidationResult<>(false, ServerConfig.Validation.FETCH_PORT_ERROR);
+        });
+
+        second.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                first.cancel(true);
+            }
+        });
+    }
+
+    private static <T> T join(final CompletableFuture<T> leg, final CompletableFuture<?> sibling) {
+        try {
+            return join(leg);
+        } catch (final CancellationException e) {
+            // the leg was cancelled because its sibling failed, so report the sibling's failure instead
+            join(sibling);
+            throw e;
+        }
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            // rethrow the original exception so callers see the same failures as when running sequentially
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
         }
     }
 
@@ -215,4 +428,11 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
         private ValidationResult<?> dahValidationResult;
     }
 
+    @AllArgsConstructor
+    private static class DahValidation {
+        private final ValidationResult<?> result;
+        // true if the result should be included in the DistributedValidationResultDetails
+        private final boolean report;
+    }
+
 }
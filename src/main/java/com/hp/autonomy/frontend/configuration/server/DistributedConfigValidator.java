@@ -20,6 +20,10 @@ import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.frontend.configuration.validation.Validator;
 import com.opentext.idol.types.marshalling.ProcessorFactory;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * {@link Validator} for DistributedConfig
  */
@@ -28,6 +32,9 @@ public class DistributedConfigValidator implements Validator<DistributedConfig>
     private AciService aciService;
     private IndexingService indexingService;
     private ProcessorFactory processorFactory;
+    private ServerValidationOptions validationOptions = ServerValidationOptions.DEFAULT;
+    private Executor executor;
+    private Duration validationDeadline;
 
     /**
      * @param aciService The AciService to use for validation
@@ -50,9 +57,45 @@ public class DistributedConfigValidator implements Validator<DistributedConfig>
         this.processorFactory = processorFactory;
     }
 
+    /**
+     * @param validationOptions The {@link ServerValidationOptions} controlling how servers are validated
+     */
+    public void setValidationOptions(final ServerValidationOptions validationOptions) {
+        this.validationOptions = validationOptions;
+    }
+
+    /**
+     * @param executor The {@link Executor} used by {@link #validateAsync(DistributedConfig)}
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param validationDeadline The maximum time {@link #validateAsync(DistributedConfig)} may take, or null for no limit
+     */
+    public void setValidationDeadline(final Duration validationDeadline) {
+        this.validationDeadline = validationDeadline;
+    }
+
     @Override
     public ValidationResult<?> validate(final DistributedConfig config) {
-        return config.validate(aciService, indexingService, processorFactory);
+        return config.validate(aciService, indexingService, processorFactory, validationOptions);
+    }
+
+    /**
+     * Validates the config without blocking the calling thread
+     *
+     * @param config The config to validate
+     * @return A future which completes with the result of the validation
+     * @throws IllegalStateException If no executor has been set
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(final DistributedConfig config) {
+        if (executor == null) {
+            throw new IllegalStateException("An executor must be set to validate asynchronously");
+        }
+
+        return config.validateAsync(aciService, indexingService, processorFactory, validationOptions, executor, validationDeadline);
     }
 
     @Override
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.frontend.configuration.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodically revalidates registered servers in the background and keeps the latest result of each in memory, so
+ * that status pages and readiness probes can read the health of a server without any network I/O.
+ * <p>
+ * Each check runs again one interval after the previous run completed, so a slow server is never checked twice at
+ * once. Intervals are randomised by the jitter fraction so that checks registered together do not stay in step, and
+ * at most {@code maxConcurrentChecks} validations run at a time; checks which find no free slot are retried shortly
+ * afterwards.
+ * <p>
+ * Validations run on the given executor. A validation which throws is published as invalid with
+ * {@link ServerConfig.Validation#CONNECTION_ERROR}.
+ */
+public class HealthCheckScheduler implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HealthCheckScheduler.class);
+
+    // how long a check waits for a free slot before trying again
+    private static final long BUSY_RETRY_MILLIS = 100;
+
+    private final Map<String, Check> checks = new ConcurrentHashMap<>();
+    private final Map<String, HealthStatus> snapshot = new ConcurrentHashMap<>();
+
+    private final long interval;
+    private final double jitter;
+    private final Semaphore slots;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean started;
+
+    /**
+     * @param interval            The time between the end of one validation of a server and the start of the next
+     * @param jitter              The fraction, between 0 and 1, by which each interval is randomly lengthened or shortened
+     * @param maxConcurrentChecks The maximum number of validations to run at once
+     * @param executor            Runs the validations
+     */
+    public HealthCheckScheduler(final Duration interval, final double jitter, final int maxConcurrentChecks, final Executor executor) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1");
+        }
+
+        this.interval = interval.toMillis();
+        this.jitter = jitter;
+        this.executor = executor;
+
+        slots = new Semaphore(maxConcurrentChecks);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "health-check-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a config to be checked with a {@link Validator}, such as a {@link ServerConfigValidator} or
+     * {@link DistributedConfigValidator}. Registering a name again replaces the previous check.
+     *
+     * @param name      The name the result is published under
+     * @param config    The config to validate
+     * @param validator The validator to use
+     * @param <T>       The type of the config
+     */
+    public <T> void register(final String name, final T config, final Validator<T> validator) {
+        register(name, () -> validator.validate(config));
+    }
+
+    /**
+     * Registers a validation to be run periodically. Registering a name again replaces the previous check.
+     *
+     * @param name       The name the result is published under
+     * @param validation Validates the server
+     */
+    public void register(final String name, final Supplier<ValidationResult<?>> validation) {
+        final Check check = new Check(name, validation);
+        final Check previous = checks.put(name, check);
+
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        if (started) {
+            // spread the first runs over an interval
+            check.schedule((long) (ThreadLocalRandom.current().nextDouble() * interval));
+        }
+    }
+
+    /**
+     * Stops checking a server and removes its result from the snapshot
+     *
+     * @param name The name the server was registered with
+     */
+    public void unregister(final String name) {
+        final Check check = checks.remove(name);
+
+        if (check != null) {
+            check.cancel();
+        }
+
+        snapshot.remove(name);
+    }
+
+    /**
+     * Starts checking the registered servers
+     */
+    public void start() {
+        started = true;
+
+        for (final Check check : checks.values()) {
+            check.schedule((long) (ThreadLocalRandom.current().nextDouble() * interval));
+        }
+    }
+
+    /**
+     * Stops all checks. Results already published remain readable.
+     */
+    @Override
+    public void close() {
+        started = false;
+
+        for (final Check check : checks.values()) {
+            check.cancel();
+        }
+
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param name The name the server was registered with
+     * @return The result of the latest check of the server, or null if it has not yet been checked
+     */
+    public HealthStatus getStatus(final String name) {
+        return snapshot.get(name);
+    }
+
+    /**
+     * @return The latest results of all servers which have been checked, keyed by name
+     */
+    public Map<String, HealthStatus> getSnapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(snapshot));
+    }
+
+    private long nextDelay() {
+        final double factor = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return (long) (interval * factor);
+    }
+
+    private class Check {
+        private final String name;
+        private final Supplier<ValidationResult<?>> validation;
+
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> next;
+
+        private Check(final String name, final Supplier<ValidationResult<?>> validation) {
+            this.name = name;
+            this.validation = validation;
+        }
+
+        private void schedule(final long delayMillis) {
+            if (cancelled || !started) {
+                return;
+            }
+
+            try {
+                next = scheduler.schedule(this::trigger, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException ignored) {
+                // the scheduler has been closed
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+
+            final ScheduledFuture<?> scheduled = next;
+
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        private void trigger() {
+            if (!slots.tryAcquire()) {
+                schedule(BUSY_RETRY_MILLIS);
+                return;
+            }
+
+            try {
+                executor.execute(this::run);
+            } catch (final RejectedExecutionException e) {
+                slots.release();
+                LOGGER.warn("Health check for {} was rejected by the executor", name);
+                schedule(nextDelay());
+            }
+        }
+
+        private void run() {
+            final long start = System.nanoTime();
+
+            try {
+                ValidationResult<?> result;
+
+                try {
+                    result = validation.get();
+                } catch (final RuntimeException e) {
+                    LOGGER.debug("Health check for {} failed", name, e);
+                    result = new ValidationResult<>(false, ServerConfig.Validation.CONNECTION_ERROR);
+                }
+
+                if (!cancelled) {
+                    snapshot.put(name, new HealthStatus(result, Instant.now(), Duration.ofNanos(System.nanoTime() - start)));
+                }
+            } finally {
+                slots.release();
+                schedule(nextDelay());
+            }
+        }
+    }
+}
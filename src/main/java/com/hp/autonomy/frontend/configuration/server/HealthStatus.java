@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The result of the most recent background validation of a server, as published by {@link HealthCheckScheduler}
+ */
+@Data
+public class HealthStatus {
+    /**
+     * @return The result of the validation
+     */
+    private final ValidationResult<?> result;
+
+    /**
+     * @return When the validation completed
+     */
+    private final Instant checkedAt;
+
+    /**
+     * @return How long the validation took
+     */
+    private final Duration duration;
+
+    /**
+     * @return True if the server was valid when it was last checked
+     */
+    public boolean isHealthy() {
+        return result.isValid();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * {@link ProtocolProber} which races all the protocols against each other. The first protocol to pass its test is
+ * returned and the remaining probes are cancelled.
+ */
+class ParallelProtocolProber implements ProtocolProber {
+
+    private final Executor executor;
+
+    ParallelProtocolProber(final Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public <P> P probe(final List<P> protocols, final Predicate<P> test) {
+        final CompletionService<Boolean> completionService = new ExecutorCompletionService<>(executor);
+        final Map<Future<Boolean>, P> probes = new IdentityHashMap<>();
+
+        try {
+            for (final P protocol : protocols) {
+                probes.put(completionService.submit(() -> test.test(protocol)), protocol);
+            }
+
+            for (int i = 0; i < probes.size(); i++) {
+                final Future<Boolean> probe = completionService.take();
+
+                if (succeeded(probe)) {
+                    return probes.get(probe);
+                }
+            }
+
+            return null;
+        } catch (final InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            for (final Future<Boolean> probe : probes.keySet()) {
+                probe.cancel(true);
+            }
+        }
+    }
+
+    private boolean succeeded(final Future<Boolean> probe) throws InterruptedException {
+        try {
+            return Boolean.TRUE.equals(probe.get());
+        } catch (final ExecutionException ignored) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.metrics.ConfigurationMetrics;
+import com.hp.autonomy.frontend.configuration.metrics.MetricTags;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the phases of a single validation, dividing the remaining validation timeout between the phases which are
+ * still to run. A phase which exceeds its budget is cancelled and a {@link ValidationTimeoutException} is thrown.
+ * <p>
+ * When there is a timeout, phases are run on the phase executor from {@link ServerValidationOptions} rather than its
+ * executor. That executor runs whole validations, such as the DIH and DAH legs of a {@link DistributedConfig}, which
+ * wait for their phases; running the phases on it as well would deadlock a small pool. The default phase executor is
+ * bounded, and rejects phases rather than queueing them, so servers which hang despite cancellation cannot take an
+ * unlimited number of threads.
+ * <p>
+ * The time taken by each phase is recorded in the {@link ConfigurationMetrics} from the options.
+ */
+final class PhaseRunner {
+
+    private static final int DEFAULT_MAX_THREADS = 32;
+
+    static final Executor DEFAULT_EXECUTOR = new ThreadPoolExecutor(0, DEFAULT_MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+        final Thread thread = new Thread(runnable, "validation-phase");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor executor;
+    private final Duration timeout;
+    private final long deadline;
+    private final Set<ValidationPhase> phases;
+    private final ConfigurationMetrics metrics;
+    private final MetricTags tags;
+
+    private PhaseRunner(
+            final Executor executor,
+            final Duration timeout,
+            final Set<ValidationPhase> phases,
+            final ConfigurationMetrics metrics,
+            final MetricTags tags
+    ) {
+        this.executor = executor;
+        this.timeout = timeout;
+        this.phases = phases;
+        this.metrics = metrics;
+        this.tags = tags;
+
+        deadline = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * @param options The {@link ServerValidationOptions} containing the timeout, phase executor and metrics
+     * @param phases  The phases which are expected to run
+     * @param tags    The tags recorded with each phase's timing
+     * @return A PhaseRunner whose deadline starts now
+     */
+    static PhaseRunner start(final ServerValidationOptions options, final Set<ValidationPhase> phases, final MetricTags tags) {
+        return new PhaseRunner(options.getPhaseExecutor(), options.getValidationTimeout(), EnumSet.copyOf(phases), options.getMetrics(), tags);
+    }
+
+    <T> T run(final ValidationPhase phase, final Supplier<T> task) {
+        final long start = System.nanoTime();
+
+        try {
+            return runWithinBudget(phase, task);
+        } finally {
+            metrics.recordStep(tags, phase.name(), System.nanoTime() - start);
+        }
+    }
+
+    private <T> T runWithinBudget(final ValidationPhase phase, final Supplier<T> task) {
+        if (timeout == null) {
+            return task.get();
+        }
+
+        final long budget = budget(phase);
+
+        if (budget <= 0) {
+            throw new ValidationTimeoutException(phase);
+        }
+
+        final FutureTask<T> future = new FutureTask<>(task::get);
+
+        try {
+            executor.execute(future);
+        } catch (final RejectedExecutionException ignored) {
+            // every phase thread is busy, most likely with phases abandoned against hung servers
+            throw new ValidationTimeoutException(phase);
+        }
+
+        try {
+            return future.get(budget, TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException ignored) {
+            future.cancel(true);
+            throw new ValidationTimeoutException(phase);
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during validation phase " + phase, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // the phase's share of the time remaining, shared with the phases which will run after it
+    private long budget(final ValidationPhase phase) {
+        final long remaining = deadline - System.nanoTime();
+
+        int weights = phase.getWeight();
+
+        for (final ValidationPhase laterPhase : phases) {
+            if (laterPhase.compareTo(phase) > 0) {
+                weights += laterPhase.getWeight();
+            }
+        }
+
+        return remaining * phase.getWeight() / weights;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * Strategy for determining which transport protocol a port is using when this is not known in advance.
+ */
+public interface ProtocolProber {
+
+    /**
+     * Tests each protocol in turn, stopping at the first which succeeds. HTTP should be tested first, as a HTTPS server
+     * will reject HTTP quickly whereas HTTPS to a HTTP server will wait for the full timeout.
+     */
+    ProtocolProber SEQUENTIAL = new SequentialProtocolProber();
+
+    /**
+     * @param executor The {@link Executor} used to run the probes. This should be able to run one task per protocol
+     *                 concurrently, otherwise the probes will effectively be sequential.
+     * @return A ProtocolProber which tests all the protocols at the same time, taking the first which succeeds and
+     * cancelling the others
+     */
+    static ProtocolProber parallel(final Executor executor) {
+        return new ParallelProtocolProber(executor);
+    }
+
+    /**
+     * @param protocols The protocols to test, in order of preference
+     * @param test      Returns true if the port responds correctly to the given protocol
+     * @param <P>       The type of protocol
+     * @return A protocol which passed the test, or null if none of them did
+     */
+    <P> P probe(List<P> protocols, Predicate<P> test);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * {@link ProtocolProber} which tests protocols one after the other on the calling thread.
+ */
+class SequentialProtocolProber implements ProtocolProber {
+
+    @Override
+    public <P> P probe(final List<P> protocols, final Predicate<P> test) {
+        for (final P protocol : protocols) {
+            if (test.test(protocol)) {
+                return protocol;
+            }
+        }
+
+        return null;
+    }
+}
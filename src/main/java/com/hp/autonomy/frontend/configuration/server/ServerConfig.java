@@ -29,6 +29,9 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigException;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
+import com.hp.autonomy.frontend.configuration.aci.TypedProcessor;
+import com.hp.autonomy.frontend.configuration.aci.UnreachableServerCache;
+import com.hp.autonomy.frontend.configuration.metrics.MetricTags;
 import com.hp.autonomy.frontend.configuration.validation.OptionalConfigurationComponent;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.types.requests.idol.actions.general.GeneralActions;
@@ -43,8 +46,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Configuration for an ACI server, which can also include index and service ports.
@@ -118,78 +126,149 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
             final IndexingService indexingService,
             final ProcessorFactory processorFactory,
             final Collection<String> serverProductTypes
+    ) {
+        return fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes, ServerValidationOptions.DEFAULT);
+    }
+
+    /**
+     * Fetches the index and service ports from the component
+     *
+     * @param aciService      The {@link AciService} used to discover the ports.
+     * @param indexingService The {@link IndexingService} used to test the index port. This can be null if no index port is specified.
+     * @param processorFactory Idol response parser generator
+     * @param serverProductTypes The product types associated with the server
+     * @param options         The {@link ServerValidationOptions} controlling how the ports are discovered. If they have
+     *                        an endpoint cache, cached ports are probed rather than discovered.
+     * @return A new ServerConfig with its indexing and service details filled in.
+     * @throws ValidationTimeoutException If the options have a validation timeout and discovery did not complete in time
+     */
+    public ServerConfig fetchServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Collection<String> serverProductTypes,
+            final ServerValidationOptions options
+    ) {
+        final Set<ValidationPhase> phases = EnumSet.of(ValidationPhase.PORT_DISCOVERY, ValidationPhase.SERVICE_PROBE);
+
+        if (indexErrorMessage != null) {
+            phases.add(ValidationPhase.INDEX_PROBE);
+        }
+
+        return fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes, options, PhaseRunner.start(options, phases, metricTags()));
+    }
+
+    private ServerConfig fetchServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Collection<String> serverProductTypes,
+            final ServerValidationOptions options,
+            final PhaseRunner phaseRunner
+    ) {
+        final DiscoveredEndpointCache endpointCache = options.getEndpointCache();
+
+        if (endpointCache != null) {
+            return endpointCache.fetch(this, serverProductTypes,
+                    () -> discoverServerDetails(aciService, indexingService, processorFactory, serverProductTypes, options, phaseRunner),
+                    cached -> probeEndpoints(cached, aciService, indexingService, phaseRunner),
+                    // revalidation happens in the background, after this validation's deadline
+                    () -> fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes, options.toBuilder().endpointCache(null).build()));
+        }
+
+        return discoverServerDetails(aciService, indexingService, processorFactory, serverProductTypes, options, phaseRunner);
+    }
+
+    private ServerConfig discoverServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Collection<String> serverProductTypes,
+            final ServerValidationOptions options,
+            final PhaseRunner phaseRunner
     ) {
         final ServerConfigBuilder builder = toBuilder();
+        final ProtocolProber protocolProber = options.getProtocolProber();
 
-        final Ports ports = determinePorts(aciService, processorFactory, serverProductTypes);
+        final ValidationPlan plan = new ValidationPlan(this, serverProductTypes);
+        final Ports ports = phaseRunner.run(ValidationPhase.PORT_DISCOVERY, () -> determinePorts(aciService, processorFactory, plan, options));
 
         if (ports.indexPort != null) {
-            final ServerDetails indexDetails = new ServerDetails();
-            indexDetails.setHost(host);
-            indexDetails.setPort(ports.indexPort);
-            boolean isIndexPortValid = false;
-
-            for (final ServerDetails.TransportProtocol protocol : Arrays.asList(ServerDetails.TransportProtocol.HTTP, ServerDetails.TransportProtocol.HTTPS)) {
-                indexDetails.setProtocol(protocol);
-
-                if (testIndexingConnection(indexDetails, indexingService, indexErrorMessage)) {
-                    // test http first. If the server is https, it will give an error (quickly),
-                    // whereas the timeout when doing https to a http server takes a really long time
-                    builder.indexProtocol(protocol);
-                    builder.indexPort(ports.indexPort);
-
-                    isIndexPortValid = true;
-                    break;
-                }
-            }
+            final ServerDetails.TransportProtocol indexProtocol = phaseRunner.run(ValidationPhase.INDEX_PROBE, () -> protocolProber.probe(
+                    plan.indexProtocols(ports.indexPort),
+                    protocol -> testIndexingConnection(indexServerDetails(ports.indexPort, protocol), indexingService, indexErrorMessage)
+            ));
 
-            if (!isIndexPortValid) {
+            if (indexProtocol == null) {
                 throw new IllegalArgumentException("Server does not have a valid index port");
             }
+
+            builder.indexProtocol(indexProtocol);
+            builder.indexPort(ports.indexPort);
         }
 
         final int servicePort = ports.servicePort;
-        final AciServerDetails servicePortDetails = new AciServerDetails();
-        servicePortDetails.setHost(host);
-        servicePortDetails.setPort(servicePort);
-
-        for (final AciServerDetails.TransportProtocol protocol : Arrays.asList(AciServerDetails.TransportProtocol.HTTP, AciServerDetails.TransportProtocol.HTTPS)) {
-            servicePortDetails.setProtocol(protocol);
-            servicePortDetails.setPort(servicePort);
-
-            if (testServicePortConnection(servicePortDetails, aciService)) {
-                // test http first. If the server is https, it will give an error (quickly),
-                // whereas the timeout when doing https to a http server takes a really long time
-                builder.serviceProtocol(protocol);
-                builder.servicePort(servicePort);
-
-                //Both index and service ports are valid
-                return builder.build();
-            }
+        final AciServerDetails.TransportProtocol serviceProtocol = phaseRunner.run(ValidationPhase.SERVICE_PROBE, () -> protocolProber.probe(
+                plan.serviceProtocols(servicePort),
+                protocol -> testServicePortConnection(new AciServerDetails(protocol, host, servicePort), aciService)
+        ));
+
+        if (serviceProtocol == null) {
+            //Index port valid but service port invalid
+            throw new IllegalArgumentException("Server does not have a valid service port");
         }
 
-        //Index port valid but service port invalid
-        throw new IllegalArgumentException("Server does not have a valid service port");
+        builder.serviceProtocol(serviceProtocol);
+        builder.servicePort(servicePort);
+
+        //Both index and service ports are valid
+        return builder.build();
+    }
+
+    // tests the index and service endpoints of a config whose ports are already known
+    private boolean probeEndpoints(
+            final ServerConfig serverConfig,
+            final AciService aciService,
+            final IndexingService indexingService,
+            final PhaseRunner phaseRunner
+    ) {
+        if (serverConfig.getIndexPort() != null && !phaseRunner.run(ValidationPhase.INDEX_PROBE,
+                () -> testIndexingConnection(serverConfig.toServerDetails(), indexingService, indexErrorMessage))) {
+            return false;
+        }
+
+        return phaseRunner.run(ValidationPhase.SERVICE_PROBE, () -> testServicePortConnection(
+                new AciServerDetails(serverConfig.getServiceProtocol(), host, serverConfig.getServicePort()), aciService));
+    }
+
+    private ServerDetails indexServerDetails(final int indexPort, final ServerDetails.TransportProtocol indexProtocol) {
+        final ServerDetails indexDetails = new ServerDetails();
+        indexDetails.setHost(host);
+        indexDetails.setPort(indexPort);
+        indexDetails.setProtocol(indexProtocol);
+        return indexDetails;
     }
 
     private Ports determinePorts(
             final AciService aciService,
             final ProcessorFactory processorFactory,
-            final Collection<String> serverProductTypes
+            final ValidationPlan plan,
+            final ServerValidationOptions options
     ) {
         try {
-            // getStatus doesn't always return ports, but does when an index port is used
-            // some versions of Distributed Connector don't return the service port from GetChildren
-            final boolean useGetStatusToDeterminePorts = indexErrorMessage != null || serverProductTypes.contains(ProductType.DISTRIBUTED_CONNECTOR.name());
-
-            if (useGetStatusToDeterminePorts) {
-                final Processor<GetStatusResponseData> processor = processorFactory.getResponseDataProcessor(GetStatusResponseData.class);
-                final GetStatusResponseData getStatusResponseData = aciService.executeAction(toAciServerDetails(), new ActionParameters(StatusActions.GetStatus.name()), processor);
+            if (plan.discoverPortsWithGetStatus()) {
+                final Processor<GetStatusResponseData> processor = TypedProcessor.of(GetStatusResponseData.class, processorFactory.getResponseDataProcessor(GetStatusResponseData.class));
+                final Supplier<GetStatusResponseData> request = () -> sendToAciPort(options,
+                        () -> aciService.executeAction(toAciServerDetails(), new ActionParameters(StatusActions.GetStatus.name()), processor));
+                final GetStatusResponseData getStatusResponseData = options.getStatusSnapshots() == null
+                        ? request.get()
+                        : options.getStatusSnapshots().getStatus(toAciServerDetails(), GetStatusResponseData.class, request);
 
                 return new Ports(getStatusResponseData.getAciport(), getStatusResponseData.getIndexport(), getStatusResponseData.getServiceport());
             } else {
-                final Processor<GetChildrenResponseData> processor = processorFactory.getResponseDataProcessor(GetChildrenResponseData.class);
-                final GetChildrenResponseData responseData = aciService.executeAction(toAciServerDetails(), new ActionParameters(GeneralActions.GetChildren.name()), processor);
+                final Processor<GetChildrenResponseData> processor = TypedProcessor.of(GetChildrenResponseData.class, processorFactory.getResponseDataProcessor(GetChildrenResponseData.class));
+                final GetChildrenResponseData responseData = sendToAciPort(options,
+                        () -> aciService.executeAction(toAciServerDetails(), new ActionParameters(GeneralActions.GetChildren.name()), processor));
 
                 return new Ports(responseData.getPort(), null, responseData.getServiceport());
             }
@@ -198,6 +277,7 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         }
     }
 
+    // the response is discarded, so this is not shared through the status snapshots
     private boolean testServicePortConnection(final AciServerDetails serviceDetails, final AciService aciService) {
         try {
             aciService.executeAction(serviceDetails, new ActionParameters("getstatus"), new NoopProcessor());
@@ -256,10 +336,44 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
      * <li>Valid if the server config is valid</li>
      * <li>If it is not valid because the given server is not of the require type, the data will be a {@link IncorrectServerType},
      * containing a list of valid server types</li>
+     * <li>If it is not valid because a validation timeout was configured and a phase ran out of time, the data will be a
+     * {@link ValidationTimeout}, containing the phase</li>
      * <li>If it is invalid for any other reason, the data will be a {@link ServerConfig.Validation}</li>
      * </ul>
      */
     public ValidationResult<?> validate(final AciService aciService, final IndexingService indexingService, final ProcessorFactory processorFactory) {
+        return validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+    }
+
+    /**
+     * Validates that the required settings are supplied and that the target server is responding
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory}
+     * @param options          The {@link ServerValidationOptions} controlling how the server is validated
+     * @return A {@link ValidationResult}, as described in {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public ValidationResult<?> validate(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options
+    ) {
+        final MetricTags tags = metricTags();
+        final ValidationResult<?> result = validateServer(aciService, indexingService, processorFactory, options, tags);
+        options.getMetrics().recordOutcome(tags, outcome(result));
+        return result;
+    }
+
+    private ValidationResult<?> validateServer(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options,
+            final MetricTags tags
+    ) {
         // if the host is blank further testing is futile
         try {
             // string doesn't matter here as we swallow the exception
@@ -268,10 +382,20 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
             return new ValidationResult<>(false, Validation.REQUIRED_FIELD_MISSING);
         }
 
+        final Set<ValidationPhase> phases = EnumSet.of(ValidationPhase.VERSION_CHECK, ValidationPhase.PORT_DISCOVERY, ValidationPhase.SERVICE_PROBE);
+
+        if (indexErrorMessage != null) {
+            phases.add(ValidationPhase.INDEX_PROBE);
+        }
+
+        final PhaseRunner phaseRunner = PhaseRunner.start(options, phases, tags);
         final Collection<String> serverProductTypes;
 
         try {
-            serverProductTypes = getServerProductTypes(aciService, processorFactory);
+            serverProductTypes = phaseRunner.run(ValidationPhase.VERSION_CHECK, () -> getServerProductTypes(aciService, processorFactory, options));
+        } catch (final ValidationTimeoutException e) {
+            LOGGER.debug("Timed out validating server version for {}", productType);
+            return new ValidationResult<>(false, new ValidationTimeout(e.getPhase()));
         } catch (final RuntimeException e) {
             LOGGER.debug("Error validating server version for {}", productType);
             LOGGER.debug("", e);
@@ -294,7 +418,7 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         }
 
         try {
-            final ServerConfig serverConfig = fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes);
+            final ServerConfig serverConfig = fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes, options, phaseRunner);
 
             final boolean result = serverConfig.servicePort > 0;
 
@@ -302,12 +426,61 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
             return indexPortPresent ? new ValidationResult<>(result && serverConfig.indexPort > 0,
                     Validation.SERVICE_OR_INDEX_PORT_ERROR) : new ValidationResult<>(result, Validation.SERVICE_PORT_ERROR);
 
+        } catch (final ValidationTimeoutException e) {
+            LOGGER.debug("Timed out validating config", e);
+            return new ValidationResult<>(false, new ValidationTimeout(e.getPhase()));
         } catch (final RuntimeException e) {
             LOGGER.debug("Error validating config", e);
             return new ValidationResult<>(false, Validation.FETCH_PORT_ERROR);
         }
     }
 
+    /**
+     * Validates the server without blocking the calling thread
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory}
+     * @param executor         The {@link Executor} used to run the validation
+     * @return A future which completes with the {@link ValidationResult} described in
+     * {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Executor executor
+    ) {
+        return validateAsync(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT, executor, null);
+    }
+
+    /**
+     * Validates the server without blocking the calling thread. Cancelling the returned future interrupts the
+     * validation.
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory}
+     * @param options          The {@link ServerValidationOptions} controlling how the server is validated
+     * @param executor         The {@link Executor} used to run the validation
+     * @param deadline         The maximum time the validation may take, or null for no limit. If the deadline passes the
+     *                         future completes exceptionally with a {@link java.util.concurrent.TimeoutException}.
+     * @return A future which completes with the {@link ValidationResult} described in
+     * {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ServerValidationOptions options,
+            final Executor executor,
+            final Duration deadline
+    ) {
+        return AsyncValidation.supply(() -> validate(aciService, indexingService, processorFactory, options), executor, deadline);
+    }
+
     /**
      * @param component The name of the configuration section, to be used in case of failure
      * @throws ConfigException If the ServerConfig is invalid
@@ -323,22 +496,62 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         }
     }
 
-    private Collection<String> getServerProductTypes(final AciService aciService, final ProcessorFactory processorFactory) {
+    private Collection<String> getServerProductTypes(final AciService aciService, final ProcessorFactory processorFactory, final ServerValidationOptions options) {
         // Community's ProductName is just IDOL, so we need to check the product type
-        final GetVersionResponseData versionResponseData = aciService
+        final GetVersionResponseData versionResponseData = sendToAciPort(options, () -> aciService
                 .executeAction(toAciServerDetails(),
                         new ActionParameters(GeneralActions.GetVersion.name()),
-                        processorFactory.getResponseDataProcessor(GetVersionResponseData.class));
+                        TypedProcessor.of(GetVersionResponseData.class, processorFactory.getResponseDataProcessor(GetVersionResponseData.class))));
 
         return new HashSet<>(Arrays.asList(versionResponseData.getProducttypecsv().split(",")));
     }
 
-    private boolean testServerVersion(final Collection<String> serverProductTypes) {
+    // fails fast if the options say the server is known to be unreachable
+    private <T> T sendToAciPort(final ServerValidationOptions options, final Supplier<T> request) {
+        final UnreachableServerCache unreachableServers = options.getUnreachableServers();
+        return unreachableServers == null ? request.get() : unreachableServers.execute(host, port, request);
+    }
+
+    // package-private for benchmarks
+    boolean testServerVersion(final Collection<String> serverProductTypes) {
         return productTypeRegex == null
                 ? productType.stream().anyMatch(p -> serverProductTypes.contains(p.name()))
                 : serverProductTypes.stream().anyMatch(serverProductType -> productTypeRegex.matcher(serverProductType).matches());
     }
 
+    MetricTags metricTags() {
+        final String productTypeTag;
+
+        if (productTypeRegex != null) {
+            productTypeTag = productTypeRegex.pattern();
+        } else if (productType != null) {
+            productTypeTag = productType.stream().map(Enum::name).sorted().collect(Collectors.joining(","));
+        } else {
+            productTypeTag = "";
+        }
+
+        return new MetricTags("ServerConfig", productTypeTag, host);
+    }
+
+    // the outcome of a validation as recorded in metrics: VALID, or the reason it is invalid
+    static String outcome(final ValidationResult<?> result) {
+        if (result.isValid()) {
+            return "VALID";
+        }
+
+        final Object data = result.getData();
+
+        if (data instanceof Validation) {
+            return ((Validation) data).name();
+        } else if (data instanceof IncorrectServerType) {
+            return ((IncorrectServerType) data).getValidation().name();
+        } else if (data instanceof ValidationTimeout) {
+            return ((ValidationTimeout) data).getValidation().name();
+        }
+
+        return "INVALID";
+    }
+
     /**
      * @return The service port details of this ServerConfig as an {@link AciServerDetails}
      */
@@ -359,7 +572,8 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         SERVICE_OR_INDEX_PORT_ERROR,
         FETCH_PORT_ERROR,
         INCORRECT_SERVER_TYPE,
-        REGULAR_EXPRESSION_MATCH_ERROR
+        REGULAR_EXPRESSION_MATCH_ERROR,
+        TIMEOUT
     }
 
     @Data
@@ -369,6 +583,13 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         private final List<String> friendlyNames;
     }
 
+    @Data
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class ValidationTimeout {
+        private final Validation validation = Validation.TIMEOUT;
+        private final ValidationPhase phase;
+    }
+
     @SuppressWarnings({"FieldMayBeFinal", "unused"})
     @JsonPOJOBuilder(withPrefix = "")
     @JsonIgnoreProperties(value = "encryptionCodec", ignoreUnknown = true) // for compatibility with old AciServerDetails config files
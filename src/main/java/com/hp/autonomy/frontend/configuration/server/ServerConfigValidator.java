@@ -20,6 +20,10 @@ import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.frontend.configuration.validation.Validator;
 import com.opentext.idol.types.marshalling.ProcessorFactory;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * A {@link Validator} for {@link ServerConfig}
  */
@@ -28,6 +32,9 @@ public class ServerConfigValidator implements Validator<ServerConfig> {
     private AciService aciService;
     private IndexingService indexingService;
     private ProcessorFactory processorFactory;
+    private ServerValidationOptions validationOptions = ServerValidationOptions.DEFAULT;
+    private Executor executor;
+    private Duration validationDeadline;
 
     /**
      * @param processorFactory The {@link ProcessorFactory} to use for validation
@@ -52,9 +59,45 @@ public class ServerConfigValidator implements Validator<ServerConfig> {
         this.indexingService = indexingService;
     }
 
+    /**
+     * @param validationOptions The {@link ServerValidationOptions} controlling how servers are validated
+     */
+    public void setValidationOptions(final ServerValidationOptions validationOptions) {
+        this.validationOptions = validationOptions;
+    }
+
+    /**
+     * @param executor The {@link Executor} used by {@link #validateAsync(ServerConfig)}
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param validationDeadline The maximum time {@link #validateAsync(ServerConfig)} may take, or null for no limit
+     */
+    public void setValidationDeadline(final Duration validationDeadline) {
+        this.validationDeadline = validationDeadline;
+    }
+
     @Override
     public ValidationResult<?> validate(final ServerConfig config) {
-        return config.validate(aciService, indexingService, processorFactory);
+        return config.validate(aciService, indexingService, processorFactory, validationOptions);
+    }
+
+    /**
+     * Validates the config without blocking the calling thread
+     *
+     * @param config The config to validate
+     * @return A future which completes with the result of the validation
+     * @throws IllegalStateException If no executor has been set
+     */
+    public CompletableFuture<ValidationResult<?>> validateAsync(final ServerConfig config) {
+        if (executor == null) {
+            throw new IllegalStateException("An executor must be set to validate asynchronously");
+        }
+
+        return config.validateAsync(aciService, indexingService, processorFactory, validationOptions, executor, validationDeadline);
     }
 
     @Override
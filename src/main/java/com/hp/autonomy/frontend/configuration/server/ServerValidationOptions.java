@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.aci.StatusSnapshotService;
+import com.hp.autonomy.frontend.configuration.aci.UnreachableServerCache;
+import com.hp.autonomy.frontend.configuration.metrics.ConfigurationMetrics;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Options controlling how {@link ServerConfig} and {@link DistributedConfig} discover and validate their servers.
+ * These are runtime settings and are not part of the serialized configuration.
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class ServerValidationOptions {
+
+    /**
+     * The options used when none are supplied
+     */
+    public static final ServerValidationOptions DEFAULT = builder().build();
+
+    /**
+     * @return The strategy used to determine the protocols of the index and service ports
+     */
+    @Builder.Default
+    private final ProtocolProber protocolProber = ProtocolProber.SEQUENTIAL;
+
+    /**
+     * @return The cache of previously discovered index and service ports. If null, ports are always discovered from
+     * the server. Cached ports are still probed on every validation; see {@link DiscoveredEndpointCache} for what the
+     * cache saves.
+     */
+    private final DiscoveredEndpointCache endpointCache;
+
+    /**
+     * @return The {@link Executor} used to run independent parts of a validation, such as the DIH and DAH of a
+     * {@link DistributedConfig}, concurrently. By default these run one after the other on the calling thread.
+     */
+    @Builder.Default
+    private final Executor executor = Runnable::run;
+
+    /**
+     * @return The maximum time a single server validation may take, or null for no limit. The time is divided between
+     * the {@link ValidationPhase}s, and a phase which exceeds its share is cancelled. Blocking I/O ignores cancellation,
+     * so the {@link com.autonomy.aci.client.services.AciService} and
+     * {@link com.autonomy.nonaci.indexing.IndexingService} should have socket timeouts no longer than this; otherwise
+     * a phase abandoned against a hung server keeps its {@link #getPhaseExecutor() phase executor} thread.
+     */
+    private final Duration validationTimeout;
+
+    /**
+     * @return The {@link Executor} which runs each {@link ValidationPhase} when there is a
+     * {@link #getValidationTimeout() validation timeout}, while the validating thread waits for it. It must run tasks
+     * on other threads, and should not be the {@link #getExecutor() executor}. A phase which the executor rejects fails
+     * with a {@link ValidationTimeoutException}. By default a shared pool of at most 32 daemon threads is used.
+     */
+    @Builder.Default
+    private final Executor phaseExecutor = PhaseRunner.DEFAULT_EXECUTOR;
+
+    /**
+     * @return Used to fail fast when the ACI port of a server is known to be unreachable. If null, every validation
+     * contacts the server.
+     */
+    private final UnreachableServerCache unreachableServers;
+
+    /**
+     * @return Used to share GetStatus responses from the ACI port with other callers. If null, every validation sends
+     * its own request.
+     */
+    private final StatusSnapshotService statusSnapshots;
+
+    /**
+     * @return Receives the time taken by each {@link ValidationPhase} and the outcome of each validation
+     */
+    @Builder.Default
+    private final ConfigurationMetrics metrics = ConfigurationMetrics.NOOP;
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+/**
+ * The phases of validating a {@link ServerConfig}, in the order they are run. Each phase receives a share of the
+ * validation timeout in proportion to its weight.
+ */
+public enum ValidationPhase {
+
+    /**
+     * Checking the product type reported by GetVersion
+     */
+    VERSION_CHECK(1),
+
+    /**
+     * Reading the index and service ports from GetStatus or GetChildren
+     */
+    PORT_DISCOVERY(1),
+
+    /**
+     * Determining the protocol of the index port
+     */
+    INDEX_PROBE(2),
+
+    /**
+     * Determining the protocol of the service port
+     */
+    SERVICE_PROBE(2);
+
+    private final int weight;
+
+    ValidationPhase(final int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return The relative share of the validation timeout given to this phase. Probes may need to try more than one
+     * protocol, so receive a larger share.
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Works out which requests are needed to discover and validate the ports of a {@link ServerConfig}, and the order in
+ * which to send them, from the configuration and the product types reported by the server's GetVersion response.
+ * <p>
+ * Protocols are tried in order of likelihood: the protocol previously discovered for the same port, then HTTP before
+ * HTTPS. The protocol of the ACI port is not used, since servers commonly use HTTPS for the ACI port alone. For a
+ * server which has already been discovered, this avoids a failed request per port.
+ * <p>
+ * The plan only chooses and orders requests. GetVersion and port discovery are separate ACI actions, so a server which
+ * has not been discovered before needs the same requests as without a plan.
+ */
+final class ValidationPlan {
+
+    private final ServerConfig serverConfig;
+    private final Collection<String> serverProductTypes;
+
+    ValidationPlan(final ServerConfig serverConfig, final Collection<String> serverProductTypes) {
+        this.serverConfig = serverConfig;
+        this.serverProductTypes = serverProductTypes;
+    }
+
+    /**
+     * @return True if the ports should be read from GetStatus; false if GetChildren is sufficient
+     */
+    boolean discoverPortsWithGetStatus() {
+        // getStatus doesn't always return ports, but does when an index port is used
+        // some versions of Distributed Connector don't return the service port from GetChildren
+        return serverConfig.getIndexErrorMessage() != null || serverProductTypes.contains(ProductType.DISTRIBUTED_CONNECTOR.name());
+    }
+
+    /**
+     * @param servicePort The service port reported by the server
+     * @return The protocols to test against the service port, most likely first
+     */
+    List<AciServerDetails.TransportProtocol> serviceProtocols(final int servicePort) {
+        final AciServerDetails.TransportProtocol previous = Integer.valueOf(servicePort).equals(serverConfig.getServicePort())
+                ? serverConfig.getServiceProtocol()
+                : null;
+
+        return order(previous, AciServerDetails.TransportProtocol.values());
+    }
+
+    /**
+     * @param indexPort The index port reported by the server
+     * @return The protocols to test against the index port, most likely first
+     */
+    List<ServerDetails.TransportProtocol> indexProtocols(final int indexPort) {
+        final ServerDetails.TransportProtocol previous = Integer.valueOf(indexPort).equals(serverConfig.getIndexPort())
+                ? serverConfig.getIndexProtocol()
+                : null;
+
+        return order(previous, ServerDetails.TransportProtocol.values());
+    }
+
+    @SafeVarargs
+    private static <P> List<P> order(final P previous, final P... protocols) {
+        final Set<P> ordered = new LinkedHashSet<>();
+
+        if (previous != null) {
+            ordered.add(previous);
+        }
+
+        // HTTP comes first in the enum: a HTTPS server rejects HTTP quickly, whereas HTTPS to a HTTP server waits
+        // for the full timeout
+        ordered.addAll(Arrays.asList(protocols));
+
+        return new ArrayList<>(ordered);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+/**
+ * Thrown when a phase of validating or discovering a server does not complete within its share of the validation
+ * timeout.
+ */
+public class ValidationTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = -2695013377745394383L;
+
+    private final ValidationPhase phase;
+
+    ValidationTimeoutException(final ValidationPhase phase) {
+        super("Validation phase " + phase + " did not complete in time");
+        this.phase = phase;
+    }
+
+    /**
+     * @return The phase which ran out of time
+     */
+    public ValidationPhase getPhase() {
+        return phase;
+    }
+}
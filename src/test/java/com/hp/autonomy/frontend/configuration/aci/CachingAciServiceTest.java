@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingAciServiceTest {
+    private static final AciServerDetails SERVER = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 9000);
+
+    @Mock
+    private AciService aciService;
+    @Mock
+    private Processor<String> processor;
+
+    private ResponseCache responseCache;
+
+    @Before
+    public void setUp() {
+        responseCache = new ResponseCache(ResponseCacheSettings.builder()
+                .actionTimeToLive("Query", Duration.ofMinutes(1))
+                .build());
+
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenReturn("response");
+    }
+
+    @Test
+    public void testRegisteredProcessorIsCached() {
+        final CachingAciService service = new CachingAciService(aciService, responseCache, new ResponseTypes().register(processor, String.class));
+
+        assertThat(service.executeAction(SERVER, query(), processor), is("response"));
+        assertThat(service.executeAction(SERVER, query(), processor), is("response"));
+
+        verify(aciService, times(1)).executeAction(any(AciServerDetails.class), any(), any());
+    }
+
+    @Test
+    public void testTypedProcessorIsCached() {
+        final CachingAciService service = new CachingAciService(aciService, responseCache);
+        final Processor<String> typedProcessor = TypedProcessor.of(String.class, processor);
+
+        service.executeAction(SERVER, query(), typedProcessor);
+        service.executeAction(SERVER, query(), typedProcessor);
+
+        verify(aciService, times(1)).executeAction(any(AciServerDetails.class), any(), any());
+    }
+
+    @Test
+    public void testUnknownProcessorIsPassedThrough() {
+        final CachingAciService service = new CachingAciService(aciService, responseCache);
+
+        service.executeAction(SERVER, query(), processor);
+        service.executeAction(SERVER, query(), processor);
+
+        verify(aciService, times(2)).executeAction(any(AciServerDetails.class), any(), any());
+    }
+
+    private static ActionParameters query() {
+        final ActionParameters parameters = new ActionParameters("Query");
+        parameters.add("Text", "cat");
+        return parameters;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+    private final List<String> events = new ArrayList<>();
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private final CircuitBreakerSettings settings = CircuitBreakerSettings.builder()
+            .windowSize(4)
+            .minimumCalls(4)
+            .failureRateThreshold(0.5)
+            .openDuration(Duration.ofMillis(50))
+            .halfOpenCalls(2)
+            .build();
+
+    @Test
+    public void testOpensWhenFailureRateIsReached() {
+        final CircuitBreaker breaker = breaker(settings);
+
+        succeed(breaker);
+        succeed(breaker);
+        failTimes(breaker, 1);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+
+        failTimes(breaker, 1);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void testRejectsCallsWhileOpen() {
+        final CircuitBreaker breaker = breaker(settings);
+        failTimes(breaker, 4);
+
+        try {
+            succeed(breaker);
+            fail("Expected the call to be rejected");
+        } catch (final CircuitBreakerOpenException ignored) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testClosesAfterSuccessfulProbes() {
+        final CircuitBreaker breaker = breaker(settings);
+        failTimes(breaker, 4);
+        waitForOpenDuration();
+
+        succeed(breaker);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        succeed(breaker);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(events, contains("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"));
+    }
+
+    @Test
+    public void testReopensWhenProbeFails() {
+        final CircuitBreaker breaker = breaker(settings);
+        failTimes(breaker, 4);
+        waitForOpenDuration();
+
+        failTimes(breaker, 1);
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(events, contains("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN"));
+    }
+
+    @Test
+    public void testIgnoresCallsWhichStartedBeforeTheStateChanged() {
+        final CircuitBreaker breaker = breaker(settings);
+
+        breaker.execute(() -> {
+            failTimes(breaker, 4);
+            waitForOpenDuration();
+            succeed(breaker);
+            return "response";
+        }, e -> true, () -> new CircuitBreakerOpenException("example.com:9000"));
+
+        // the outer call started while the circuit was closed, so does not count as the second probe
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    public void testOpensWhenSlowCallRateIsReached() {
+        final CircuitBreaker breaker = breaker(settings.toBuilder()
+                .slowCallDuration(Duration.ZERO)
+                .slowCallRateThreshold(1)
+                .build());
+
+        for (int i = 0; i < 4; i++) {
+            succeed(breaker);
+        }
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void testIgnoresExceptionsWhichAreNotFailures() {
+        final CircuitBreaker breaker = breaker(settings);
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                breaker.execute(() -> {
+                    throw new IllegalArgumentException("Bad parameter");
+                }, e -> false, () -> new CircuitBreakerOpenException("example.com:9000"));
+            } catch (final IllegalArgumentException ignored) {
+                // expected
+            }
+        }
+
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    private CircuitBreaker breaker(final CircuitBreakerSettings settings) {
+        return new CircuitBreakers(settings, (server, previous, current) -> events.add(previous + "->" + current), nanoTime::get).get("example.com", 9000);
+    }
+
+    private void waitForOpenDuration() {
+        nanoTime.addAndGet(settings.getOpenDuration().toNanos());
+    }
+
+    private static void succeed(final CircuitBreaker breaker) {
+        breaker.execute(() -> "response", e -> true, () -> new CircuitBreakerOpenException("example.com:9000"));
+    }
+
+    private static void failTimes(final CircuitBreaker breaker, final int times) {
+        for (int i = 0; i < times; i++) {
+            try {
+                breaker.execute(() -> {
+                    throw new AciServiceException("Connection refused");
+                }, e -> true, () -> new CircuitBreakerOpenException("example.com:9000"));
+                fail("Expected the call to fail");
+            } catch (final CircuitBreakerOpenException e) {
+                throw e;
+            } catch (final AciServiceException ignored) {
+                // expected
+            }
+        }
+    }
+}
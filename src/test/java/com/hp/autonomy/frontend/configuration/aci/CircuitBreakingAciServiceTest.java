@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CircuitBreakingAciServiceTest {
+    private static final AciServerDetails SERVER = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 9000);
+
+    @Mock
+    private AciService aciService;
+    @Mock
+    private Processor<String> processor;
+
+    private final CircuitBreakers circuitBreakers = new CircuitBreakers(CircuitBreakerSettings.builder()
+            .windowSize(2)
+            .minimumCalls(2)
+            .build(), null);
+
+    @Test
+    public void testIoFailuresOpenTheCircuit() {
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenThrow(new AciServiceException(new IOException("Connection refused")));
+
+        send(2);
+
+        assertThat(circuitBreakers.get("example.com", 9000).getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void testResponsesWhichCannotBeProcessedDoNotOpenTheCircuit() {
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenThrow(new AciServiceException("Unexpected response"));
+
+        send(2);
+
+        assertThat(circuitBreakers.get("example.com", 9000).getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testErrorResponsesDoNotOpenTheCircuit() {
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenThrow(new AciErrorException());
+
+        send(2);
+
+        assertThat(circuitBreakers.get("example.com", 9000).getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    private void send(final int requests) {
+        final CircuitBreakingAciService service = new CircuitBreakingAciService(aciService, circuitBreakers);
+
+        for (int i = 0; i < requests; i++) {
+            try {
+                service.executeAction(SERVER, new ActionParameters("Query"), processor);
+            } catch (final AciServiceException ignored) {
+                // expected
+            }
+        }
+    }
+}
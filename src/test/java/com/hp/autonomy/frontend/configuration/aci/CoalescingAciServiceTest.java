@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CoalescingAciServiceTest {
+    private static final AciServerDetails SERVER = ServerConfig.builder()
+            .protocol(AciServerDetails.TransportProtocol.HTTP)
+            .host("example.com")
+            .port(9000)
+            .build()
+            .toAciServerDetails();
+
+    @Mock
+    private AciService aciService;
+    @Mock
+    private Processor<String> rawProcessor;
+
+    private Processor<String> processor;
+
+    private ExecutorService executor;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        callers = Executors.newCachedThreadPool();
+        processor = TypedProcessor.of(String.class, rawProcessor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalConcurrentRequestsShareOneCall() throws Exception {
+        final CoalescingAciService service = new CoalescingAciService(aciService, Collections.singleton("GetStatus"), null, executor);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        when(aciService.executeAction(any(), any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return "response";
+        });
+
+        final Future<String> first = callers.submit(() -> service.executeAction(SERVER, new ActionParameters("GetStatus"), processor));
+        final Future<String> second = callers.submit(() -> service.executeAction(SERVER, new ActionParameters("getstatus"), processor));
+
+        waitForRequests(service, 2);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is("response"));
+        assertThat(second.get(5, TimeUnit.SECONDS), is("response"));
+        verify(aciService, times(1)).executeAction(any(), any(), any());
+        assertThat(service.getCoalescedRequests(), is(1L));
+
+        // nothing is kept once the call completes
+        assertThat(service.getInFlightCalls(), is(0));
+        assertThat(service.executeAction(SERVER, new ActionParameters("GetStatus"), processor), is("response"));
+        verify(aciService, times(2)).executeAction(any(), any(), any());
+    }
+
+    @Test
+    public void testInterruptedCallerDoesNotAffectOthers() throws Exception {
+        final CoalescingAciService service = new CoalescingAciService(aciService, Collections.singleton("GetStatus"), null, executor);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        when(aciService.executeAction(any(), any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return "response";
+        });
+
+        final Future<String> cancelled = callers.submit(() -> service.executeAction(SERVER, new ActionParameters("GetStatus"), processor));
+        final Future<String> waiting = callers.submit(() -> service.executeAction(SERVER, new ActionParameters("GetStatus"), processor));
+
+        waitForRequests(service, 2);
+        cancelled.cancel(true);
+        release.countDown();
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS), is("response"));
+        verify(aciService, times(1)).executeAction(any(), any(), any());
+    }
+
+    @Test
+    public void testCallIsCancelledWhenEveryCallerTimesOut() throws InterruptedException {
+        final CoalescingAciService service = new CoalescingAciService(aciService, Collections.singleton("GetStatus"), Duration.ofMillis(50), executor);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        when(aciService.executeAction(any(), any(), any())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (final InterruptedException ignored) {
+                interrupted.countDown();
+            }
+
+            return "response";
+        });
+
+        try {
+            service.executeAction(SERVER, new ActionParameters("GetStatus"), processor);
+            fail("Expected the request to time out");
+        } catch (final AciServiceException ignored) {
+        }
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertThat(service.getInFlightCalls(), is(0));
+    }
+
+    @Test
+    public void testOtherActionsAreNotCoalesced() {
+        final CoalescingAciService service = new CoalescingAciService(aciService, Collections.singleton("GetStatus"), null, executor);
+        when(aciService.executeAction(any(), any(), any())).thenReturn("response");
+
+        assertThat(service.executeAction(SERVER, new ActionParameters("DREADD"), processor), is("response"));
+        assertThat(service.getRequests(), is(0L));
+    }
+
+    @Test
+    public void testUntypedProcessorsAreNotCoalesced() {
+        final CoalescingAciService service = new CoalescingAciService(aciService, Collections.singleton("GetStatus"), null, executor);
+        when(aciService.executeAction(any(), any(), any())).thenReturn("response");
+
+        assertThat(service.executeAction(SERVER, new ActionParameters("GetStatus"), rawProcessor), is("response"));
+        assertThat(service.getRequests(), is(0L));
+    }
+
+    @Test
+    public void testRegisteredProcessorsAreCoalesced() {
+        final ResponseTypes responseTypes = new ResponseTypes().register(rawProcessor, String.class);
+        final CoalescingAciService service = new CoalescingAciService(aciService, Collections.singleton("GetStatus"), null, executor, responseTypes);
+        when(aciService.executeAction(any(), any(), any())).thenReturn("response");
+
+        assertThat(service.executeAction(SERVER, new ActionParameters("GetStatus"), rawProcessor), is("response"));
+        assertThat(service.getRequests(), is(1L));
+        assertThat(service.getBackendCalls(), is(1L));
+    }
+
+    private static void waitForRequests(final CoalescingAciService service, final long requests) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (service.getRequests() < requests && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // give the last request time to join the call after being counted
+        Thread.sleep(100);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HedgingAciServiceTest {
+    @Mock
+    private AciService aciService;
+    @Mock
+    private Processor<String> processor;
+
+    private ExecutorService executor;
+    private HedgingAciService service;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+
+        final HedgingSettings settings = HedgingSettings.builder()
+                .initialDelay(Duration.ofMillis(20))
+                .build();
+
+        service = new HedgingAciService(aciService, Arrays.asList(server(9000), server(10000)), settings, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowRequestIsHedgedAndLoserCancelled() throws InterruptedException {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (final InterruptedException ignored) {
+                interrupted.countDown();
+            }
+
+            return "slow";
+        });
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any())).thenReturn("fast");
+
+        assertThat(service.executeAction(new ActionParameters("Query"), processor), is("fast"));
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertThat(service.getHedgedRequests(), is(1L));
+        assertThat(service.getHedgeWins(), is(1L));
+        assertThat(service.getHedgeRate(), is(1.0));
+    }
+
+    @Test(timeout = 5000)
+    public void testFailedRequestIsHedgedImmediately() {
+        final HedgingAciService patientService = new HedgingAciService(aciService, Arrays.asList(server(9000), server(10000)), HedgingSettings.builder()
+                .initialDelay(Duration.ofMinutes(1))
+                .build(), executor);
+
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any())).thenThrow(new AciServiceException("Connection refused"));
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any())).thenReturn("secondary");
+
+        assertThat(patientService.executeAction(new ActionParameters("Query"), processor), is("secondary"));
+        assertThat(patientService.getHedgedRequests(), is(1L));
+    }
+
+    @Test(timeout = 5000)
+    public void testErrorResponseIsNotHedged() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any())).thenThrow(new AciErrorException());
+
+        try {
+            service.executeAction(new ActionParameters("Query"), processor);
+            fail("Expected the request to fail");
+        } catch (final AciErrorException ignored) {
+            // expected
+        }
+
+        verify(aciService, never()).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+        assertThat(service.getHedgedRequests(), is(0L));
+    }
+
+    @Test
+    public void testFailsWhenEveryAttemptFails() {
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenThrow(new AciServiceException("Connection refused"));
+
+        try {
+            service.executeAction(new ActionParameters("Query"), processor);
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+
+        verify(aciService).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+    }
+
+    @Test
+    public void testFastRequestIsNotHedged() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any())).thenReturn("fast");
+
+        assertThat(service.executeAction(new ActionParameters("Query"), processor), is("fast"));
+
+        verify(aciService, never()).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+        assertThat(service.getEligibleRequests(), is(1L));
+        assertThat(service.getHedgeRate(), is(0.0));
+    }
+
+    @Test
+    public void testIneligibleActionIsNotHedged() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return "response";
+        });
+
+        assertThat(service.executeAction(new ActionParameters("DREADD"), processor), is("response"));
+
+        verify(aciService, never()).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+        assertThat(service.getEligibleRequests(), is(0L));
+    }
+
+    private static ServerConfig server(final int port) {
+        return ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host("example.com")
+                .port(port)
+                .build();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadBalancingAciServiceTest {
+    @Mock
+    private AciService aciService;
+    @Mock
+    private Processor<String> processor;
+
+    private List<ServerConfig> servers;
+
+    @Before
+    public void setUp() {
+        servers = Arrays.asList(server(9000), server(10000));
+    }
+
+    @Test
+    public void testRoundRobinAlternatesServers() {
+        final List<Integer> ports = new ArrayList<>();
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenAnswer(invocation -> {
+            ports.add(invocation.<AciServerDetails>getArgument(0).getPort());
+            return "response";
+        });
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            service.executeAction(new ActionParameters("GetStatus"), processor);
+        }
+
+        assertThat(ports, contains(9000, 10000, 9000, 10000));
+    }
+
+    @Test
+    public void testFailsOverAndAvoidsUnhealthyServer() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any()))
+                .thenThrow(new AciServiceException("Connection refused", new ConnectException()));
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any()))
+                .thenReturn("response");
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(service.executeAction(new ActionParameters("GetStatus"), processor), is("response"));
+        }
+
+        // the first server is only tried once before being marked unhealthy
+        verify(aciService).executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any());
+        assertThat(service.getHealthyServers().size(), is(1));
+        assertThat(service.getHealthyServers().get(0).getPort(), is(10000));
+    }
+
+    @Test
+    public void testDoesNotFailOverOnAciError() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any()))
+                .thenThrow(new AciErrorException());
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        try {
+            service.executeAction(new ActionParameters("Query"), processor);
+            fail("Expected the ACI error to be thrown");
+        } catch (final AciErrorException ignored) {
+            // expected
+        }
+
+        verify(aciService, never()).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+        assertThat(service.getHealthyServers().size(), is(2));
+    }
+
+    @Test
+    public void testDoesNotFailOverAfterRequestWasSent() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any()))
+                .thenThrow(new AciServiceException("Read timed out", new SocketTimeoutException()));
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        try {
+            service.executeAction(new ActionParameters("GetStatus"), processor);
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+
+        verify(aciService, never()).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+        assertThat(service.getHealthyServers().size(), is(2));
+    }
+
+    @Test
+    public void testDoesNotFailOverNonIdempotentAction() {
+        when(aciService.executeAction(argThat(details -> details != null && details.getPort() == 9000), any(), any()))
+                .thenThrow(new AciServiceException("Connection refused", new ConnectException()));
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        try {
+            service.executeAction(new ActionParameters("DREADD"), processor);
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+
+        verify(aciService, never()).executeAction(argThat(details -> details != null && details.getPort() == 10000), any(), any());
+        assertThat(service.getHealthyServers().size(), is(1));
+    }
+
+    @Test
+    public void testThrowsWhenAllServersFail() {
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenThrow(new AciServiceException("Connection refused", new ConnectException()));
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.LEAST_OUTSTANDING, Duration.ofMinutes(1));
+
+        try {
+            service.executeAction(new ActionParameters("GetStatus"), processor);
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+
+        assertThat(service.getHealthyServers().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testLowestLatencyTriesRecoveredServerAgain() {
+        final AtomicLong nanoTime = new AtomicLong();
+        final Map<Integer, Duration> latencies = new HashMap<>();
+        latencies.put(9000, Duration.ofMillis(100));
+        latencies.put(10000, Duration.ofMillis(20));
+
+        final List<Integer> ports = new ArrayList<>();
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenAnswer(invocation -> {
+            final int port = invocation.<AciServerDetails>getArgument(0).getPort();
+            ports.add(port);
+            nanoTime.addAndGet(latencies.get(port).toNanos());
+            return "response";
+        });
+
+        final LoadBalancingAciService service = new LoadBalancingAciService(aciService, servers, LoadBalancingPolicy.LOWEST_LATENCY, Duration.ofMinutes(1),
+                RetrySettings.DEFAULT.getIdempotentActions(), nanoTime::get);
+
+        for (int i = 0; i < 3; i++) {
+            service.executeAction(new ActionParameters("GetStatus"), processor);
+        }
+
+        // each server is tried once, then the faster one is preferred
+        assertThat(ports, contains(9000, 10000, 10000));
+
+        // the slower server recovers while it is not being used
+        latencies.put(9000, Duration.ofMillis(10));
+        ports.clear();
+
+        for (int i = 0; i < 10; i++) {
+            nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+            service.executeAction(new ActionParameters("GetStatus"), processor);
+        }
+
+        assertThat(ports.contains(9000), is(true));
+        assertThat(ports.get(ports.size() - 1), is(9000));
+    }
+
+    private static ServerConfig server(final int port) {
+        return ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host("example.com")
+                .port(port)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.ActionParameters;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ResponseCacheTest {
+    private final AciServerDetails server = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 9000);
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final ResponseCacheSettings settings = ResponseCacheSettings.builder()
+            .actionTimeToLive("Query", Duration.ofMinutes(1))
+            .build();
+
+    @Test
+    public void testIdenticalRequestIsAnsweredFromCache() {
+        final ResponseCache cache = new ResponseCache(settings);
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        final String response = cache.get(server, query("cat", "News"), String.class, this::request);
+
+        assertThat(response, is("response1"));
+        assertThat(requests.get(), is(1));
+        assertThat(cache.getStats().getHeapHits(), is(1L));
+        assertThat(cache.getStats().getMisses(), is(1L));
+    }
+
+    @Test
+    public void testParameterOrderDoesNotMatter() {
+        final ResponseCache cache = new ResponseCache(settings);
+
+        final ActionParameters reordered = new ActionParameters();
+        reordered.add("databasematch", "News");
+        reordered.add("text", "cat");
+        reordered.add("action", "query");
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        cache.get(server, reordered, String.class, this::request);
+
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testParameterValuesCannotForgeAnotherKey() {
+        final ResponseCache cache = new ResponseCache(settings);
+
+        final ActionParameters injected = new ActionParameters("Query");
+        injected.add("text", "a&b=c");
+
+        final ActionParameters separate = new ActionParameters("Query");
+        separate.add("text", "a");
+        separate.add("b", "c");
+
+        cache.get(server, injected, String.class, this::request);
+        cache.get(server, separate, String.class, this::request);
+
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testDifferentResponseTypesAreCachedSeparately() {
+        final ResponseCache cache = new ResponseCache(settings);
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        final CharSequence response = cache.get(server, query("cat", "News"), CharSequence.class, this::request);
+
+        assertThat(response, is("response2"));
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testDifferentServersAreCachedSeparately() {
+        final ResponseCache cache = new ResponseCache(settings);
+        final AciServerDetails otherServer = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 10000);
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        cache.get(otherServer, query("cat", "News"), String.class, this::request);
+
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testActionsWithoutTimeToLiveAreNotCached() {
+        final ResponseCache cache = new ResponseCache(settings);
+
+        cache.get(server, new ActionParameters("GetStatus"), String.class, this::request);
+        cache.get(server, new ActionParameters("GetStatus"), String.class, this::request);
+
+        assertThat(requests.get(), is(2));
+        assertThat(cache.getStats().getMisses(), is(0L));
+    }
+
+    @Test
+    public void testExpiredResponseIsRequestedAgain() {
+        final AtomicLong nanoTime = new AtomicLong();
+        final ResponseCache cache = new ResponseCache(settings, nanoTime::get);
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+        cache.get(server, query("cat", "News"), String.class, this::request);
+
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testEvictedResponseIsServedFromSecondLevel() {
+        final ResponseCache cache = new ResponseCache(settings.toBuilder()
+                .maxHeapBytes(15)
+                .defaultResponseBytes(10)
+                .sizeEstimator(null)
+                .secondLevelStore(new OffHeapResponseCacheStore(1024 * 1024))
+                .build());
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        cache.get(server, query("dog", "News"), String.class, this::request);
+
+        assertThat(cache.get(server, query("cat", "News"), String.class, this::request), is("response1"));
+        assertThat(requests.get(), is(2));
+        assertThat(cache.getStats().getHeapEvictions(), is(1L));
+        assertThat(cache.getStats().getSecondLevelHits(), is(1L));
+    }
+
+    @Test
+    public void testInvalidateDiscardsResponses() {
+        final ResponseCache cache = new ResponseCache(settings.toBuilder()
+                .secondLevelStore(new OffHeapResponseCacheStore(1024 * 1024))
+                .build());
+
+        cache.get(server, query("cat", "News"), String.class, this::request);
+        cache.invalidate(server, "QUERY");
+        cache.get(server, query("cat", "News"), String.class, this::request);
+
+        assertThat(requests.get(), is(2));
+    }
+
+    private static ActionParameters query(final String text, final String databases) {
+        final ActionParameters parameters = new ActionParameters("Query");
+        parameters.add("text", text);
+        parameters.add("databasematch", databases);
+        return parameters;
+    }
+
+    private String request() {
+        return "response" + requests.incrementAndGet();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ResponseSizeEstimatorTest {
+    private final ResponseSizeEstimator estimator = ResponseSizeEstimator.DEFAULT;
+
+    @Test
+    public void testLargerResponsesHaveLargerEstimates() {
+        final Hit small = new Hit("cat", Collections.singletonList("News"));
+        final Hit large = new Hit(String.join("", Collections.nCopies(1000, "cat")), Collections.singletonList("News"));
+
+        assertThat(estimator.applyAsLong(large) - estimator.applyAsLong(small), greaterThan(2990L));
+    }
+
+    @Test
+    public void testSharedObjectsAreCountedOnce() {
+        final Hit hit = new Hit("cat", Collections.singletonList("News"));
+        final List<Hit> one = new ArrayList<>(Collections.singletonList(hit));
+        final List<Hit> same = new ArrayList<>(Collections.nCopies(2, hit));
+
+        // only the extra list entry is counted
+        assertThat(estimator.applyAsLong(same) - estimator.applyAsLong(one), lessThan(64L));
+    }
+
+    @Test
+    public void testUnreadableResponseIsUnknown() {
+        assertThat(estimator.applyAsLong(new Thread()), is(-1L));
+    }
+
+    @Test
+    public void testTooManyObjectsIsUnknown() {
+        final List<Hit> hits = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            hits.add(new Hit("cat" + i, Collections.emptyList()));
+        }
+
+        assertThat(new ResponseSizeEstimator(10).applyAsLong(hits), is(-1L));
+    }
+
+    private static class Hit {
+        private final String title;
+        private final List<String> databases;
+
+        private Hit(final String title, final List<String> databases) {
+            this.title = title;
+            this.databases = databases;
+        }
+    }
+}
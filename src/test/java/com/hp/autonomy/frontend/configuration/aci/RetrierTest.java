@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RetrierTest {
+    private final RetrySettings settings = RetrySettings.builder()
+            .maxAttempts(3)
+            .initialBackoff(Duration.ZERO)
+            .maxBackoff(Duration.ZERO)
+            .build();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    public void testRetriesTransientFailure() {
+        final Retrier retrier = new Retrier(settings);
+
+        final String response = retrier.execute(failingTimes(2), true, e -> true);
+
+        assertThat(response, is("response"));
+        assertThat(attempts.get(), is(3));
+        assertThat(retrier.getRetries(), is(2L));
+    }
+
+    @Test
+    public void testDoesNotRetryNonIdempotentRequest() {
+        final Retrier retrier = new Retrier(settings);
+
+        expectFailure(retrier, failingTimes(1), false);
+
+        assertThat(attempts.get(), is(1));
+        assertThat(retrier.getRetries(), is(0L));
+    }
+
+    @Test
+    public void testCountsExhaustedRetries() {
+        final Retrier retrier = new Retrier(settings);
+
+        expectFailure(retrier, failingTimes(5), true);
+
+        assertThat(attempts.get(), is(3));
+        assertThat(retrier.getExhausted(), is(1L));
+    }
+
+    @Test
+    public void testRetryBudgetLimitsRetries() {
+        final Retrier retrier = new Retrier(settings.toBuilder()
+                .maxAttempts(2)
+                .maxRetryBudget(2)
+                .retryBudgetRatio(0)
+                .build());
+
+        for (int i = 0; i < 4; i++) {
+            expectFailure(retrier, failingTimes(Integer.MAX_VALUE), true);
+        }
+
+        assertThat(retrier.getRetries(), is(2L));
+        assertThat(retrier.getBudgetExhausted(), is(2L));
+    }
+
+    @Test
+    public void testClassifiesIdempotentActionsCaseInsensitively() {
+        final Retrier retrier = new Retrier(settings);
+
+        assertThat(retrier.isIdempotentAction("getstatus"), is(true));
+        assertThat(retrier.isIdempotentAction("UserAdd"), is(false));
+        assertThat(retrier.isIdempotentIndexCommand("DREDELETEREF"), is(true));
+        assertThat(retrier.isIdempotentIndexCommand("DREADD"), is(false));
+    }
+
+    private Supplier<String> failingTimes(final int failures) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new AciServiceException("Connection reset");
+            }
+
+            return "response";
+        };
+    }
+
+    private static void expectFailure(final Retrier retrier, final Supplier<String> request, final boolean idempotent) {
+        try {
+            retrier.execute(request, idempotent, e -> true);
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.opentext.idol.types.responses.SecurityType;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SecurityTypesCacheTest {
+    private final AciServerDetails community = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 9030);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    public void testReturnsCachedSecurityTypesWhileFresh() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, Runnable::run);
+        final List<SecurityType> securityTypes = new ArrayList<>();
+
+        cache.get(community, () -> load(securityTypes));
+
+        assertThat(cache.get(community, () -> load(new ArrayList<>())), is(sameInstance(securityTypes)));
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testRefreshesAheadOfExpiry() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ZERO, Runnable::run);
+        final List<SecurityType> initial = new ArrayList<>();
+        final List<SecurityType> refreshed = new ArrayList<>();
+
+        cache.get(community, () -> load(initial));
+
+        // the refresh runs on the direct executor, but the caller is given the value it found
+        assertThat(cache.get(community, () -> load(refreshed)), is(sameInstance(initial)));
+        assertThat(cache.get(community, () -> load(new ArrayList<>())), is(sameInstance(refreshed)));
+    }
+
+    @Test
+    public void testServesStaleValueWhileRevalidating() {
+        final List<Runnable> refreshes = new ArrayList<>();
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ofMinutes(1), Duration.ofSeconds(5), refreshes::add, nanoTime::get);
+        final List<SecurityType> initial = new ArrayList<>();
+
+        cache.get(community, () -> load(initial));
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(cache.get(community, () -> load(new ArrayList<>())), is(sameInstance(initial)));
+        assertThat(cache.get(community, () -> load(new ArrayList<>())), is(sameInstance(initial)));
+        assertThat(refreshes.size(), is(1));
+    }
+
+    @Test
+    public void testReturnsLastKnownGoodValueWhenCommunityFails() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, Duration.ofSeconds(5), Runnable::run, nanoTime::get);
+        final List<SecurityType> initial = new ArrayList<>();
+
+        cache.get(community, () -> load(initial));
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(cache.get(community, this::fail), is(sameInstance(initial)));
+    }
+
+    @Test
+    public void testReturnsNullWhenNothingIsKnown() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, Runnable::run);
+
+        assertThat(cache.get(community, this::fail), is(nullValue()));
+    }
+
+    @Test
+    public void testFailedLoadIsNotRetriedByEveryCaller() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, Runnable::run);
+
+        assertThat(cache.get(community, this::fail), is(nullValue()));
+        assertThat(cache.get(community, () -> load(new ArrayList<>())), is(nullValue()));
+        assertThat(requests.get(), is(0));
+    }
+
+    @Test
+    public void testFailedLoadIsRetriedAfterBackoff() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, Duration.ofSeconds(5), Runnable::run, nanoTime::get);
+        final List<SecurityType> securityTypes = new ArrayList<>();
+
+        assertThat(cache.get(community, this::fail), is(nullValue()));
+        nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(cache.get(community, () -> load(securityTypes)), is(sameInstance(securityTypes)));
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testFailedRefreshDoesNotExtendMaxStale() {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ofMinutes(1), Duration.ofSeconds(5), Runnable::run, nanoTime::get);
+        final List<SecurityType> initial = new ArrayList<>();
+        final List<SecurityType> reloaded = new ArrayList<>();
+
+        cache.get(community, () -> load(initial));
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        // the background refresh fails, so the stale value is kept with its original load time
+        assertThat(cache.get(community, this::fail), is(sameInstance(initial)));
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(cache.get(community, () -> load(reloaded)), is(sameInstance(reloaded)));
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        final SecurityTypesCache cache = new SecurityTypesCache(Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, Runnable::run);
+        final List<SecurityType> securityTypes = new ArrayList<>();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Future<List<SecurityType>> first = executor.submit(() -> cache.get(community, () -> {
+                loading.countDown();
+                awaitUninterruptibly(release);
+                return load(securityTypes);
+            }));
+
+            loading.await();
+            final Thread waiter = new Thread(() -> cache.get(community, () -> load(new ArrayList<>())));
+            waiter.start();
+            release.countDown();
+            waiter.join();
+
+            assertThat(first.get(), is(sameInstance(securityTypes)));
+            assertThat(requests.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<SecurityType> load(final List<SecurityType> securityTypes) {
+        requests.incrementAndGet();
+        return securityTypes;
+    }
+
+    private List<SecurityType> fail() {
+        throw new AciServiceException("Connection refused");
+    }
+}
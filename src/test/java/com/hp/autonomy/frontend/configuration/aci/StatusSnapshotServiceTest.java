@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class StatusSnapshotServiceTest {
+    private final AciServerDetails server = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 9000);
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    public void testReusesResponseWithinTimeToLive() {
+        final StatusSnapshotService service = new StatusSnapshotService(Duration.ofMinutes(1));
+
+        service.getStatus(server, String.class, this::request);
+        final String status = service.getStatus(server, String.class, this::request);
+
+        assertThat(status, is("status"));
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testRequestsAgainOnceExpired() {
+        final AtomicLong nanoTime = new AtomicLong();
+        final StatusSnapshotService service = new StatusSnapshotService(Duration.ofMinutes(1), nanoTime::get);
+
+        service.getStatus(server, String.class, this::request);
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+        service.getStatus(server, String.class, this::request);
+
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testDoesNotCacheFailures() {
+        final StatusSnapshotService service = new StatusSnapshotService(Duration.ofMinutes(1));
+
+        try {
+            service.getStatus(server, String.class, () -> {
+                throw new AciServiceException("Connection refused");
+            });
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+
+        assertThat(service.getStatus(server, String.class, this::request), is("status"));
+    }
+
+    @Test
+    public void testConcurrentCallersShareRequest() throws Exception {
+        final StatusSnapshotService service = new StatusSnapshotService(Duration.ofMinutes(1));
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> service.getStatus(server, String.class, () -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (final InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+
+                    return request();
+                })));
+            }
+
+            Thread.sleep(100);
+            release.countDown();
+
+            for (final Future<String> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS), is("status"));
+            }
+
+            assertThat(requests.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String request() {
+        requests.incrementAndGet();
+        return "status";
+    }
+}
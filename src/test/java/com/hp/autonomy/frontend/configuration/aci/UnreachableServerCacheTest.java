@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class UnreachableServerCacheTest {
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    public void testFailsFastAfterConnectionFailure() {
+        final UnreachableServerCache cache = new UnreachableServerCache(Duration.ofMinutes(1));
+
+        attempt(cache, failing(new AciServiceException("Connection refused", new ConnectException())));
+        attempt(cache, succeeding());
+
+        assertThat(requests.get(), is(1));
+        assertThat(cache.isUnreachable("example.com", 9000), is(true));
+    }
+
+    @Test
+    public void testAciErrorDoesNotMarkServerUnreachable() {
+        final UnreachableServerCache cache = new UnreachableServerCache(Duration.ofMinutes(1));
+
+        attempt(cache, failing(new AciErrorException()));
+
+        assertThat(cache.isUnreachable("example.com", 9000), is(false));
+        assertThat(cache.execute("example.com", 9000, succeeding()), is("response"));
+    }
+
+    @Test
+    public void testOtherFailuresDoNotMarkServerUnreachable() {
+        final UnreachableServerCache cache = new UnreachableServerCache(Duration.ofMinutes(1));
+
+        attempt(cache, failing(new AciServiceException("Could not parse response")));
+
+        assertThat(cache.isUnreachable("example.com", 9000), is(false));
+        assertThat(cache.execute("example.com", 9000, succeeding()), is("response"));
+    }
+
+    @Test
+    public void testAllowsProbeOnceExpired() {
+        final AtomicLong nanoTime = new AtomicLong();
+        final UnreachableServerCache cache = new UnreachableServerCache(Duration.ofMinutes(1), nanoTime::get);
+
+        attempt(cache, failing(new AciServiceException("Connection refused", new ConnectException())));
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(cache.execute("example.com", 9000, succeeding()), is("response"));
+        assertThat(cache.isUnreachable("example.com", 9000), is(false));
+        assertThat(requests.get(), is(2));
+    }
+
+    private void attempt(final UnreachableServerCache cache, final Supplier<String> request) {
+        try {
+            cache.execute("example.com", 9000, request);
+            fail("Expected the request to fail");
+        } catch (final AciServiceException ignored) {
+            // expected
+        }
+    }
+
+    private Supplier<String> succeeding() {
+        return () -> {
+            requests.incrementAndGet();
+            return "response";
+        };
+    }
+
+    private Supplier<String> failing(final RuntimeException exception) {
+        return () -> {
+            requests.incrementAndGet();
+            throw exception;
+        };
+    }
+}
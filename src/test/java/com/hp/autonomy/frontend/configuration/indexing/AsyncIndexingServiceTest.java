@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableIndexingService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncIndexingServiceTest {
+    @Mock
+    private ConfigurableIndexingService indexingService;
+
+    private AsyncIndexingService service;
+
+    @Before
+    public void setUp() {
+        final ServerDetails serverDetails = new ServerDetails();
+        serverDetails.setHost("example.com");
+        serverDetails.setPort(9001);
+        when(indexingService.getServerDetails()).thenReturn(serverDetails);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        service.close();
+        assertTrue(service.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCommandsCompleteWithIndexId() throws Exception {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenReturn(1, 2);
+        service = service(AsyncIndexingSettings.builder().workersPerTarget(1));
+
+        final CompletableFuture<Integer> first = service.submit(mock(IndexCommand.class));
+        final CompletableFuture<Integer> second = service.submit(mock(IndexCommand.class));
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is(1));
+        assertThat(second.get(5, TimeUnit.SECONDS), is(2));
+    }
+
+    @Test
+    public void testFailureCompletesFutureExceptionally() throws Exception {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenThrow(new IndexingException("Index port unavailable"));
+        service = service(AsyncIndexingSettings.builder());
+
+        try {
+            service.submit(mock(IndexCommand.class)).get(5, TimeUnit.SECONDS);
+            fail("Expected the command to fail");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IndexingException);
+        }
+    }
+
+    @Test
+    public void testFullQueueRejectsCommands() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return 1;
+        });
+
+        service = service(AsyncIndexingSettings.builder()
+                .workersPerTarget(1)
+                .queueCapacity(1)
+                .overflowPolicy(OverflowPolicy.REJECT));
+
+        service.submit(mock(IndexCommand.class));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        service.submit(mock(IndexCommand.class));
+
+        try {
+            service.submit(mock(IndexCommand.class));
+            fail("Expected the command to be rejected");
+        } catch (final RejectedExecutionException ignored) {
+        }
+
+        assertThat(service.getQueuedCommands(), is(1));
+        release.countDown();
+    }
+
+    @Test
+    public void testIdleWorkersStopAndRestart() throws Exception {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenReturn(1);
+        final List<Thread> workers = new CopyOnWriteArrayList<>();
+        service = new AsyncIndexingService(indexingService, AsyncIndexingSettings.builder()
+                .workersPerTarget(1)
+                .idleTimeout(Duration.ofMillis(50))
+                .build(), runnable -> {
+            final Thread worker = new Thread(runnable);
+            workers.add(worker);
+            return worker;
+        });
+
+        assertThat(service.submit(mock(IndexCommand.class)).get(5, TimeUnit.SECONDS), is(1));
+        workers.get(0).join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(workers.get(0).isAlive(), is(false));
+
+        assertThat(service.submit(mock(IndexCommand.class)).get(5, TimeUnit.SECONDS), is(1));
+        assertThat(workers.size(), is(2));
+    }
+
+    @Test
+    public void testInterruptedWorkersFailQueuedCommands() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<Thread> workers = new CopyOnWriteArrayList<>();
+
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenAnswer(invocation -> {
+            started.countDown();
+
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+
+            return 1;
+        });
+
+        service = new AsyncIndexingService(indexingService, AsyncIndexingSettings.builder().workersPerTarget(1).build(), runnable -> {
+            final Thread worker = new Thread(runnable);
+            workers.add(worker);
+            return worker;
+        });
+
+        final CompletableFuture<Integer> running = service.submit(mock(IndexCommand.class));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<Integer> queued = service.submit(mock(IndexCommand.class));
+        workers.get(0).interrupt();
+
+        assertThat(running.get(5, TimeUnit.SECONDS), is(1));
+
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            fail("Expected the queued command to fail");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testClosedServiceRejectsCommands() {
+        service = service(AsyncIndexingSettings.builder());
+        service.close();
+        service.submit(mock(IndexCommand.class));
+    }
+
+    private AsyncIndexingService service(final AsyncIndexingSettings.AsyncIndexingSettingsBuilder settings) {
+        return new AsyncIndexingService(indexingService, settings.build(), Executors.defaultThreadFactory());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingIndexWriterTest {
+    @Mock
+    private IndexingService indexingService;
+
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchIsSentWhenFull() throws Exception {
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenReturn(7);
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().maxDocuments(2).linger(Duration.ofMinutes(1)));
+
+        final CompletableFuture<Integer> first = writer.add("DREADDDATA", "News", "#DREREFERENCE 1");
+        final CompletableFuture<Integer> second = writer.add("dreadddata", "News", "#DREREFERENCE 2");
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is(7));
+        assertThat(second.get(5, TimeUnit.SECONDS), is(7));
+        assertThat(batches, contains(contains("#DREREFERENCE 1", "#DREREFERENCE 2")));
+        assertThat(writer.getBatchesSent(), is(1L));
+        assertThat(writer.getDocumentsSent(), is(2L));
+    }
+
+    @Test
+    public void testDatabasesAreBatchedSeparately() throws Exception {
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenReturn(1, 2);
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().linger(Duration.ofMinutes(1)));
+
+        final CompletableFuture<Integer> news = writer.add("DREADDDATA", "News", "#DREREFERENCE 1");
+        final CompletableFuture<Integer> archive = writer.add("DREADDDATA", "Archive", "#DREREFERENCE 2");
+        writer.close();
+
+        assertTrue(news.get(5, TimeUnit.SECONDS) != 0);
+        assertTrue(archive.get(5, TimeUnit.SECONDS) != 0);
+        assertThat(batches.size(), is(2));
+    }
+
+    @Test
+    public void testBatchIsSentAfterLinger() throws Exception {
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenReturn(3);
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().linger(Duration.ofMillis(20)));
+
+        assertThat(writer.add("DREADDDATA", "News", "#DREREFERENCE 1").get(5, TimeUnit.SECONDS), is(3));
+    }
+
+    @Test
+    public void testBatchesAreStillSentAfterASendThrowsAnError() throws Exception {
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenThrow(new AssertionError("Unexpected")).thenReturn(5);
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().maxDocuments(1));
+
+        final CompletableFuture<Integer> first = writer.add("DREADDDATA", "News", "#DREREFERENCE 1");
+        final CompletableFuture<Integer> second = writer.add("DREADDDATA", "News", "#DREREFERENCE 2");
+
+        try {
+            first.get(5, TimeUnit.SECONDS);
+            fail("Expected the document to fail");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+
+        assertThat(second.get(5, TimeUnit.SECONDS), is(5));
+        assertThat(writer.add("DREADDDATA", "News", "#DREREFERENCE 3").get(5, TimeUnit.SECONDS), is(5));
+    }
+
+    @Test
+    public void testFailedBatchFailsEveryDocument() throws InterruptedException, TimeoutException {
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenThrow(new IndexingException("Index port unavailable"));
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().maxDocuments(2));
+
+        final CompletableFuture<Integer> first = writer.add("DREADDDATA", "News", "#DREREFERENCE 1");
+        final CompletableFuture<Integer> second = writer.add("DREADDDATA", "News", "#DREREFERENCE 2");
+
+        for (final CompletableFuture<Integer> future : Arrays.asList(first, second)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected the document to fail");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof IndexingException);
+            }
+        }
+    }
+
+    @Test
+    public void testBatchesAreSentInOrder() throws Exception {
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenReturn(1);
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().maxDocuments(1));
+        final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        final List<List<String>> expected = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            futures.add(writer.add("DREADDDATA", "News", "#DREREFERENCE " + i));
+            expected.add(Collections.singletonList("#DREREFERENCE " + i));
+        }
+
+        for (final CompletableFuture<Integer> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(batches, is(expected));
+    }
+
+    @Test
+    public void testCommandIsSentAfterPendingBatches() throws Exception {
+        final List<IndexCommand> sent = Collections.synchronizedList(new ArrayList<>());
+        when(indexingService.executeCommand(any(IndexCommand.class))).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            return sent.size();
+        });
+
+        final BatchingIndexWriter writer = writer(BatchSettings.builder().linger(Duration.ofMinutes(1)));
+        final CompletableFuture<Integer> document = writer.add("DREADDDATA", "News", "#DREREFERENCE 1");
+        final IndexCommand delete = mock(IndexCommand.class);
+
+        assertThat(writer.executeCommand(delete), is(2));
+        assertThat(document.get(5, TimeUnit.SECONDS), is(1));
+        assertThat(sent.get(1), is(delete));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedWriterRejectsDocuments() {
+        final BatchingIndexWriter writer = writer(BatchSettings.builder());
+        writer.close();
+        writer.add("DREADDDATA", "News", "#DREREFERENCE 1");
+    }
+
+    private BatchingIndexWriter writer(final BatchSettings.BatchSettingsBuilder settings) {
+        final BatchCommandFactory commandFactory = (command, database, documents) -> {
+            batches.add(new ArrayList<>(documents));
+            return mock(IndexCommand.class);
+        };
+
+        return new BatchingIndexWriter(indexingService, settings.commandFactory(commandFactory).build(), executor);
+    }
+}
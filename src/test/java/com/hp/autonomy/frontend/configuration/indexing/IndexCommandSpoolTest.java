@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class IndexCommandSpoolTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsAreReadInOrderAcrossSegments() throws IOException {
+        try (final IndexCommandSpool spool = new IndexCommandSpool(folder.getRoot().toPath(), 64, false)) {
+            for (int i = 0; i < 10; i++) {
+                spool.append(bytes("record " + i));
+            }
+
+            assertThat(spool.getPending(), is(10L));
+
+            for (int i = 0; i < 10; i++) {
+                assertThat(string(spool.peek()), is("record " + i));
+                spool.advance();
+            }
+
+            assertThat(spool.peek(), is(nullValue()));
+            assertThat(spool.isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void testUnconsumedRecordsSurviveReopening() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+
+        try (final IndexCommandSpool spool = new IndexCommandSpool(directory, 64, false)) {
+            spool.append(bytes("first"));
+            spool.append(bytes("second"));
+            spool.advance();
+        }
+
+        try (final IndexCommandSpool spool = new IndexCommandSpool(directory, 64, false)) {
+            assertThat(spool.getPending(), is(1L));
+            assertThat(string(spool.peek()), is("second"));
+        }
+    }
+
+    @Test
+    public void testCompactDeletesConsumedSegments() throws IOException {
+        try (final IndexCommandSpool spool = new IndexCommandSpool(folder.getRoot().toPath(), 64, false)) {
+            for (int i = 0; i < 10; i++) {
+                spool.append(bytes("record " + i));
+            }
+
+            for (int i = 0; i < 6; i++) {
+                spool.advance();
+            }
+
+            assertThat(spool.compact(), is(2));
+            assertThat(string(spool.peek()), is("record 6"));
+        }
+    }
+
+    @Test
+    public void testCorruptRecordIsMovedToDeadLetterFile() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+
+        try (final IndexCommandSpool spool = new IndexCommandSpool(directory, 64, false)) {
+            spool.append(bytes("first"));
+            spool.append(bytes("second"));
+        }
+
+        // overwrite the first byte of the first record's contents
+        try (final FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d.segment", 0)), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("F")), 8);
+        }
+
+        try (final IndexCommandSpool spool = new IndexCommandSpool(directory, 64, false)) {
+            try {
+                spool.peek();
+                fail("Expected the record to be corrupt");
+            } catch (final IllegalStateException ignored) {
+            }
+
+            spool.deadLetter();
+
+            assertThat(string(spool.peek()), is("second"));
+            assertThat(spool.getPending(), is(1L));
+            assertThat(spool.getDeadLetters(), is(1L));
+        }
+
+        try (final DataInputStream input = new DataInputStream(Files.newInputStream(directory.resolve("dead-letters")))) {
+            final byte[] record = new byte[input.readInt()];
+            input.readFully(record);
+            assertThat(string(record), is("First"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordLargerThanSegmentIsRejected() throws IOException {
+        try (final IndexCommandSpool spool = new IndexCommandSpool(folder.getRoot().toPath(), 64, false)) {
+            spool.append(new byte[64]);
+        }
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(final byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.indexing.IndexingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IndexCompletionTrackerTest {
+    private static final AciServerDetails SERVER = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "example.com", 9000);
+
+    @Mock
+    private AciService aciService;
+
+    private ScheduledExecutorService scheduler;
+    private IndexCompletionTracker tracker;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        if (tracker != null) {
+            tracker.close();
+        }
+
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testOnePollCompletesManyIds() throws Exception {
+        final Map<Integer, Integer> statuses = new HashMap<>();
+        statuses.put(1, -1);
+        statuses.put(2, -1);
+        statuses.put(3, -9);
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenReturn(statuses);
+
+        tracker = new IndexCompletionTracker(aciService, CompletionTrackerSettings.builder().pollInterval(Duration.ofMillis(20)).build(), scheduler);
+
+        final CompletableFuture<Integer> first = tracker.track(SERVER, 1);
+        final CompletableFuture<Integer> second = tracker.track(SERVER, 2);
+        final CompletableFuture<Integer> failed = tracker.track(SERVER, 3);
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is(-1));
+        assertThat(second.get(5, TimeUnit.SECONDS), is(-1));
+
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("Expected the command to fail");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IndexingException);
+        }
+
+        assertThat(tracker.getPending(), is(0));
+    }
+
+    @Test
+    public void testPendingIdTimesOut() throws Exception {
+        final Map<Integer, Integer> statuses = new HashMap<>();
+        statuses.put(1, -2);
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenReturn(statuses);
+
+        tracker = new IndexCompletionTracker(aciService, CompletionTrackerSettings.builder()
+                .pollInterval(Duration.ofMillis(20))
+                .timeout(Duration.ofMillis(100))
+                .build(), scheduler);
+
+        try {
+            tracker.track(SERVER, 1).get(5, TimeUnit.SECONDS);
+            fail("Expected the command to time out");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testTrackAfterCloseFailsImmediately() throws Exception {
+        tracker = new IndexCompletionTracker(aciService, CompletionTrackerSettings.DEFAULT, scheduler);
+        tracker.close();
+
+        final CompletableFuture<Integer> future = tracker.track(SERVER, 1);
+
+        assertTrue(future.isCompletedExceptionally());
+        assertThat(tracker.getPending(), is(0));
+
+        try {
+            future.get();
+            fail("Expected the future to fail");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSpooledCommandCannotBeTracked() {
+        tracker = new IndexCompletionTracker(aciService, CompletionTrackerSettings.DEFAULT, scheduler);
+        tracker.track(SERVER, SpoolingIndexingService.SPOOLED);
+    }
+
+    @Test
+    public void testParseStatuses() {
+        final String response = "<autnresponse><action>INDEXERGETSTATUS</action><response>SUCCESS</response><responsedata>"
+                + "<item><id>5</id><status>-1</status></item>"
+                + "<item><id>6</id><status>-2</status></item>"
+                + "</responsedata></autnresponse>";
+
+        final Map<Integer, Integer> statuses = IndexerStatusProcessor.parse(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(statuses.get(5), is(-1));
+        assertThat(statuses.get(6), is(-2));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class QueueDepthThrottleTest {
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean probeFails = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+    private QueueDepthThrottle throttle;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        throttle = new QueueDepthThrottle(this::measure, QueueDepthSettings.builder()
+                .pollInterval(Duration.ofMillis(10))
+                .highWaterMark(100)
+                .lowWaterMark(20)
+                .maxWait(Duration.ofMillis(50))
+                .build(), scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        throttle.close();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testPausesAtHighWaterMarkAndResumesAtLowWaterMark() throws InterruptedException {
+        queueDepth.set(100);
+        assertTrue(waitFor(throttle::isPaused));
+
+        // between the marks, indexing stays paused
+        queueDepth.set(50);
+        assertTrue(waitFor(() -> throttle.getQueueDepth() == 50));
+        assertThat(throttle.isPaused(), is(true));
+
+        queueDepth.set(20);
+        assertTrue(waitFor(() -> !throttle.isPaused()));
+        assertThat(throttle.awaitResume(), is(true));
+        assertThat(throttle.getPauses(), is(1L));
+    }
+
+    @Test
+    public void testCommandsAreRejectedWhileQueueStaysDeep() throws InterruptedException {
+        final IndexingService indexingService = mock(IndexingService.class);
+        final ThrottlingIndexingService service = new ThrottlingIndexingService(indexingService, throttle);
+
+        queueDepth.set(500);
+        assertTrue(waitFor(throttle::isPaused));
+
+        try {
+            service.executeCommand(mock(IndexCommand.class));
+            fail("Expected the command to be rejected");
+        } catch (final IndexingException ignored) {
+        }
+
+        verify(indexingService, never()).executeCommand(any(IndexCommand.class));
+    }
+
+    @Test
+    public void testResumesWhenQueueDepthCannotBeMeasured() throws InterruptedException {
+        queueDepth.set(100);
+        assertTrue(waitFor(throttle::isPaused));
+
+        probeFails.set(true);
+        assertTrue(waitFor(() -> !throttle.isPaused()));
+        assertThat(throttle.awaitResume(), is(true));
+    }
+
+    private int measure() {
+        if (probeFails.get()) {
+            throw new IllegalStateException("Index port unavailable");
+        }
+
+        return queueDepth.get();
+    }
+
+    private static boolean waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+
+            Thread.sleep(5);
+        }
+
+        return true;
+    }
+}
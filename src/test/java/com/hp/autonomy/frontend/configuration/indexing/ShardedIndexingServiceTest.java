@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ShardedIndexingServiceTest {
+    @Mock
+    private IndexingService indexingService;
+
+    private ScheduledExecutorService executor;
+    private ShardedIndexingService service;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+
+        final ShardingSettings settings = ShardingSettings.builder()
+                .batchSettings(BatchSettings.builder()
+                        .maxDocuments(1)
+                        .commandFactory((command, database, documents) -> mock(IndexCommand.class))
+                        .build())
+                .build();
+
+        service = new ShardedIndexingService(indexingService, Arrays.asList(shard("one"), shard("two")), settings, executor);
+    }
+
+    @After
+    public void tearDown() {
+        service.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDocumentsAreSentToTheirShard() throws Exception {
+        when(indexingService.executeCommand(argThat(isHost("one")), any(IndexCommand.class))).thenReturn(1);
+        when(indexingService.executeCommand(argThat(isHost("two")), any(IndexCommand.class))).thenReturn(2);
+
+        for (int i = 0; i < 20; i++) {
+            final String reference = "document-" + i;
+            final int expectedIndexId = "one".equals(service.getShard(reference).getHost()) ? 1 : 2;
+
+            assertThat(service.add("DREADDDATA", "News", reference, "#DREREFERENCE " + reference).get(5, TimeUnit.SECONDS), is(expectedIndexId));
+        }
+    }
+
+    @Test
+    public void testAddingShardMovesOnlyItsShare() {
+        final ServerConfig[] before = new ServerConfig[1000];
+
+        for (int i = 0; i < before.length; i++) {
+            before[i] = service.getShard("document-" + i);
+        }
+
+        final RebalanceReport report = service.addShards(Collections.singletonList(shard("three")));
+
+        assertThat(report.getOwnershipAfter().size(), is(3));
+        assertThat(report.getMovedFraction(), greaterThanOrEqualTo(0.2));
+        assertThat(report.getMovedFraction(), lessThanOrEqualTo(0.5));
+
+        for (int i = 0; i < before.length; i++) {
+            final String reference = "document-" + i;
+            final ServerConfig after = service.getShard(reference);
+
+            assertThat(report.isMoved(reference), is(!after.equals(before[i])));
+
+            if (report.isMoved(reference)) {
+                assertThat(after.getHost(), is("three"));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExistingShardCannotBeAdded() {
+        service.addShards(Collections.singletonList(shard("one")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testShardsCannotBeAddedAfterClose() {
+        service.close();
+        service.addShards(Collections.singletonList(shard("three")));
+    }
+
+    private static ArgumentMatcher<ServerDetails> isHost(final String host) {
+        return serverDetails -> serverDetails != null && host.equals(serverDetails.getHost());
+    }
+
+    private static ServerConfig shard(final String host) {
+        return ServerConfig.builder()
+                .host(host)
+                .port(9000)
+                .indexPort(9001)
+                .build();
+    }
+}
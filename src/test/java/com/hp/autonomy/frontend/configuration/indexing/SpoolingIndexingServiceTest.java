@@ -0,0 +1,222 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.indexing;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.autonomy.nonaci.indexing.impl.IndexCommandImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SpoolingIndexingServiceTest {
+    private static final IndexCommandCodec CODEC = new IndexCommandCodec() {
+        @Override
+        public byte[] encode(final IndexCommand command) {
+            return command.getCommand().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public IndexCommand decode(final byte[] bytes) {
+            final String command = new String(bytes, StandardCharsets.UTF_8);
+
+            if ("UNDECODABLE".equals(command)) {
+                throw new IllegalArgumentException("Unknown command");
+            }
+
+            return new IndexCommandImpl(command);
+        }
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private IndexingService indexingService;
+
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final ServerDetails serverDetails = new ServerDetails();
+    private ScheduledExecutorService scheduler;
+    private SpoolingIndexingService service;
+
+    @Before
+    public void setUp() throws IOException {
+        serverDetails.setProtocol(ServerDetails.TransportProtocol.HTTP);
+        serverDetails.setHost("example.com");
+        serverDetails.setPort(9001);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        service = createService(SpoolSettings.builder());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        service.close();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testCommandsAreSpooledAndReplayedInOrder() throws InterruptedException {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class)))
+                .thenThrow(new IndexingException("Connection refused", new ConnectException()))
+                .thenAnswer(invocation -> {
+                    sent.add(invocation.<IndexCommand>getArgument(1).getCommand());
+                    return 1;
+                });
+
+        assertThat(service.executeCommand(serverDetails, new IndexCommandImpl("DREADDDATA")), is(SpoolingIndexingService.SPOOLED));
+        assertThat(service.executeCommand(serverDetails, new IndexCommandImpl("DREDELETEREF")), is(SpoolingIndexingService.SPOOLED));
+
+        waitForEmptySpool();
+
+        assertThat(sent, contains("DREADDDATA", "DREDELETEREF"));
+        assertThat(service.getSpooled(), is(2L));
+        assertThat(service.getReplayed(), is(2L));
+    }
+
+    @Test
+    public void testRejectedCommandIsNotSpooled() {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenThrow(new IndexingException("Bad command"));
+
+        try {
+            service.executeCommand(serverDetails, new IndexCommandImpl("DREADDDATA"));
+            fail("Expected the command to fail");
+        } catch (final IndexingException ignored) {
+        }
+
+        assertThat(service.getPending(), is(0L));
+    }
+
+    @Test
+    public void testRejectedReplayIsRetriedByDefault() throws InterruptedException {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class)))
+                .thenThrow(new IndexingException("Connection refused", new ConnectException()))
+                .thenThrow(new IndexingException("Server is starting"))
+                .thenAnswer(invocation -> {
+                    sent.add(invocation.<IndexCommand>getArgument(1).getCommand());
+                    return 1;
+                });
+
+        service.executeCommand(serverDetails, new IndexCommandImpl("DREADDDATA"));
+
+        waitForEmptySpool();
+
+        assertThat(sent, contains("DREADDDATA"));
+        assertThat(service.getDeadLettered(), is(0L));
+    }
+
+    @Test
+    public void testRejectedReplayIsDeadLetteredWhenConfigured() throws IOException, InterruptedException {
+        service.close();
+        service = createService(SpoolSettings.builder().deadLetterRejected(e -> true));
+
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class)))
+                .thenThrow(new IndexingException("Connection refused", new ConnectException()))
+                .thenThrow(new IndexingException("Bad command"))
+                .thenAnswer(invocation -> {
+                    sent.add(invocation.<IndexCommand>getArgument(1).getCommand());
+                    return 1;
+                });
+
+        service.executeCommand(serverDetails, new IndexCommandImpl("DREADDDATA"));
+        service.executeCommand(serverDetails, new IndexCommandImpl("DREDELETEREF"));
+
+        waitForEmptySpool();
+
+        assertThat(sent, contains("DREDELETEREF"));
+        assertThat(service.getDeadLettered(), is(1L));
+    }
+
+    @Test
+    public void testUndecodableCommandIsDeadLettered() throws InterruptedException {
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class)))
+                .thenThrow(new IndexingException("Connection refused", new ConnectException()))
+                .thenAnswer(invocation -> {
+                    sent.add(invocation.<IndexCommand>getArgument(1).getCommand());
+                    return 1;
+                });
+
+        service.executeCommand(serverDetails, new IndexCommandImpl("UNDECODABLE"));
+        service.executeCommand(serverDetails, new IndexCommandImpl("DREADDDATA"));
+
+        waitForEmptySpool();
+
+        assertThat(sent, contains("DREADDDATA"));
+        assertThat(service.getDeadLettered(), is(1L));
+    }
+
+    @Test
+    public void testUnavailableTargetDoesNotHoldUpOtherTargets() {
+        final ServerDetails otherServerDetails = new ServerDetails();
+        otherServerDetails.setProtocol(ServerDetails.TransportProtocol.HTTP);
+        otherServerDetails.setHost("other.example.com");
+        otherServerDetails.setPort(9001);
+
+        when(indexingService.executeCommand(any(ServerDetails.class), any(IndexCommand.class))).thenAnswer(invocation -> {
+            if ("example.com".equals(invocation.<ServerDetails>getArgument(0).getHost())) {
+                throw new IndexingException("Connection refused", new ConnectException());
+            }
+
+            return 1;
+        });
+
+        assertThat(service.executeCommand(serverDetails, new IndexCommandImpl("DREADDDATA")), is(SpoolingIndexingService.SPOOLED));
+        assertThat(service.executeCommand(otherServerDetails, new IndexCommandImpl("DREADDDATA")), is(1));
+        assertThat(service.getPending(), is(1L));
+    }
+
+    private SpoolingIndexingService createService(final SpoolSettings.SpoolSettingsBuilder settings) throws IOException {
+        return new SpoolingIndexingService(indexingService, folder.getRoot().toPath(), CODEC, settings
+                .replayRate(1000)
+                .retryInterval(Duration.ofMillis(50))
+                .segmentBytes(4096)
+                .build(), scheduler);
+    }
+
+    private void waitForEmptySpool() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (service.getPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncValidationTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCompletesWithResult() throws Exception {
+        final ValidationResult<?> validationResult = new ValidationResult<>(true, "result");
+
+        final CompletableFuture<ValidationResult<?>> future = AsyncValidation.supply(() -> validationResult, executor, null);
+
+        assertThat(future.get(5, TimeUnit.SECONDS), is(validationResult));
+    }
+
+    @Test
+    public void testDeadlineInterruptsValidation() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final CompletableFuture<ValidationResult<?>> future = AsyncValidation.supply(() -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (final InterruptedException ignored) {
+                interrupted.countDown();
+            }
+
+            return new ValidationResult<>(true, "result");
+        }, executor, Duration.ofMillis(50));
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected the deadline to expire");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelInterruptsValidation() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final CompletableFuture<ValidationResult<?>> future = AsyncValidation.supply(() -> {
+            started.countDown();
+
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (final InterruptedException ignored) {
+                interrupted.countDown();
+            }
+
+            return new ValidationResult<>(true, "result");
+        }, executor, null);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+}
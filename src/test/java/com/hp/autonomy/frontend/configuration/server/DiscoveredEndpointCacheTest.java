@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class DiscoveredEndpointCacheTest {
+    private static final Predicate<ServerConfig> RESPONDING = serverConfig -> true;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Runnable> revalidations = new ArrayList<>();
+    private final AtomicInteger discoveries = new AtomicInteger();
+
+    private Path file;
+    private ServerConfig serverConfig;
+
+    @Before
+    public void setUp() {
+        file = temporaryFolder.getRoot().toPath().resolve("endpoints.json");
+
+        serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .productType(Collections.singleton(ProductType.AXE))
+                .build();
+    }
+
+    @Test
+    public void testDiscoversOnlyOnce() {
+        final DiscoveredEndpointCache cache = new DiscoveredEndpointCache(file, revalidations::add);
+
+        cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+        final ServerConfig fetched = cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+
+        assertThat(fetched.getServicePort(), is(6668));
+        assertThat(discoveries.get(), is(1));
+        assertThat(revalidations, hasSize(0));
+    }
+
+    @Test
+    public void testLoadsFromFileAndRevalidatesInBackground() {
+        new DiscoveredEndpointCache(file, revalidations::add).fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+
+        final DiscoveredEndpointCache reloaded = new DiscoveredEndpointCache(file, revalidations::add);
+        final ServerConfig fetched = reloaded.fetch(serverConfig, Collections.singleton("AXE"), discovery(7668), RESPONDING, discovery(7668));
+
+        assertThat(fetched.getServicePort(), is(6668));
+        assertThat(fetched.getServiceProtocol(), is(AciServerDetails.TransportProtocol.HTTPS));
+        assertThat(discoveries.get(), is(1));
+        assertThat(revalidations, hasSize(1));
+
+        revalidations.get(0).run();
+
+        assertThat(reloaded.fetch(serverConfig, Collections.singleton("AXE"), discovery(7668), RESPONDING, discovery(7668)).getServicePort(), is(7668));
+        assertThat(discoveries.get(), is(2));
+    }
+
+    @Test
+    public void testFingerprintMismatchDiscoversAgain() {
+        final DiscoveredEndpointCache cache = new DiscoveredEndpointCache(file, revalidations::add);
+
+        cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+        final ServerConfig fetched = cache.fetch(serverConfig, Collections.singleton("DAH"), discovery(7668), RESPONDING, discovery(7668));
+
+        assertThat(fetched.getServicePort(), is(7668));
+        assertThat(discoveries.get(), is(2));
+    }
+
+    @Test
+    public void testInvalidateDiscoversAgain() {
+        final DiscoveredEndpointCache cache = new DiscoveredEndpointCache(file, revalidations::add);
+
+        cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+        cache.invalidate(serverConfig);
+        cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+
+        assertThat(discoveries.get(), is(2));
+    }
+
+    @Test
+    public void testFailedProbeDiscoversAgain() {
+        final DiscoveredEndpointCache cache = new DiscoveredEndpointCache(file, revalidations::add);
+        final List<Integer> probedPorts = new ArrayList<>();
+
+        cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(6668), RESPONDING, discovery(6668));
+        final ServerConfig fetched = cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(7668), cached -> {
+            probedPorts.add(cached.getServicePort());
+            return false;
+        }, discovery(7668));
+
+        assertThat(probedPorts, contains(6668));
+        assertThat(fetched.getServicePort(), is(7668));
+        assertThat(discoveries.get(), is(2));
+        assertThat(cache.fetch(serverConfig, Collections.singleton("AXE"), discovery(8668), RESPONDING, discovery(8668)).getServicePort(), is(7668));
+    }
+
+    private Supplier<ServerConfig> discovery(final int servicePort) {
+        return () -> {
+            discoveries.incrementAndGet();
+
+            return serverConfig.toBuilder()
+                    .servicePort(servicePort)
+                    .serviceProtocol(AciServerDetails.TransportProtocol.HTTPS)
+                    .build();
+        };
+    }
+}
@@ -32,10 +32,15 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.springframework.boot.test.json.JsonContent;
 import org.springframework.boot.test.json.ObjectContent;
 
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.hp.autonomy.frontend.configuration.server.IsValidMatcher.valid;
 import static com.hp.autonomy.frontend.configuration.server.ServerConfigTest.IsAciParameter.aciParameter;
@@ -76,7 +81,7 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         final ValidationResult<?> validationResultOne = new ValidationResult<>(true, "ValidationResultOne");
         final ServerConfig standard = mock(ServerConfig.class);
 
-        Mockito.<ValidationResult<?>>when(standard.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultOne);
+        Mockito.<ValidationResult<?>>when(standard.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultOne);
 
         final DistributedConfig distributedConfig = DistributedConfig.builder()
             .distributed(false)
@@ -85,7 +90,7 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
 
         final ValidationResult<?> validationResultA = distributedConfig.validate(aciService, indexingService, processorFactory);
 
-        verify(standard).validate(aciService, indexingService, processorFactory);
+        verify(standard).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
 
         assertThat(validationResultA, Matchers.equalTo(validationResultOne));
     }
@@ -97,8 +102,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         final ServerConfig dih = mock(ServerConfig.class);
         final ServerConfig dah = mock(ServerConfig.class);
 
-        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultOne);
-        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultTwo);
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultOne);
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultTwo);
 
         final DistributedConfig distributedConfig = DistributedConfig.builder()
             .distributed(true)
@@ -108,8 +113,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
 
         final ValidationResult<?> validationResultDistributed = distributedConfig.validate(aciService, indexingService, processorFactory);
 
-        verify(dah).validate(aciService, indexingService, processorFactory);
-        verify(dih).validate(aciService, indexingService, processorFactory);
+        verify(dah).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+        verify(dih).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
 
         assertThat(validationResultDistributed, is(valid()));
 
@@ -125,8 +130,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         final ServerConfig dih = mock(ServerConfig.class);
         final ServerConfig dah = mock(ServerConfig.class);
 
-        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultFail);
-        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultFail);
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultFail);
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultFail);
 
         final DistributedConfig distributedConfig = DistributedConfig.builder()
             .distributed(true)
@@ -136,8 +141,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
 
         final ValidationResult<?> validationResultDistributed = distributedConfig.validate(aciService, indexingService, processorFactory);
 
-        verify(dah).validate(aciService, indexingService, processorFactory);
-        verify(dih).validate(aciService, indexingService, processorFactory);
+        verify(dah).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+        verify(dih).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
 
         assertThat(validationResultDistributed, is(not(valid())));
 
@@ -154,8 +159,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         final ServerConfig dih = mock(ServerConfig.class);
         final ServerConfig dah = mock(ServerConfig.class);
 
-        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultFail);
-        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultSuccess);
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultFail);
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultSuccess);
 
         final DistributedConfig distributedConfig = DistributedConfig.builder()
             .distributed(true)
@@ -165,8 +170,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
 
         final ValidationResult<?> validationResultDistributed = distributedConfig.validate(aciService, indexingService, processorFactory);
 
-        verify(dah).validate(aciService, indexingService, processorFactory);
-        verify(dih).validate(aciService, indexingService, processorFactory);
+        verify(dah).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+        verify(dih).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
 
         assertThat(validationResultDistributed, is(not(valid())));
 
@@ -184,8 +189,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         final ServerConfig dih = mock(ServerConfig.class);
         final ServerConfig dah = mock(ServerConfig.class);
 
-        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultSuccess);
-        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultFail);
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultSuccess);
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultFail);
 
         final DistributedConfig distributedConfig = DistributedConfig.builder()
             .distributed(true)
@@ -195,8 +200,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
 
         final ValidationResult<?> validationResultDistributed = distributedConfig.validate(aciService, indexingService, processorFactory);
 
-        verify(dah).validate(aciService, indexingService, processorFactory);
-        verify(dih).validate(aciService, indexingService, processorFactory);
+        verify(dah).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+        verify(dih).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
 
         assertThat(validationResultDistributed, is(not(valid())));
 
@@ -213,8 +218,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         final ServerConfig dih = mock(ServerConfig.class);
         final ServerConfig dah = mock(ServerConfig.class);
 
-        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultOne);
-        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory)).thenReturn(validationResultTwo);
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultOne);
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT)).thenReturn(validationResultTwo);
 
         when(dah.toAciServerDetails()).thenReturn(mock(AciServerDetails.class));
 
@@ -232,8 +237,8 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
 
         final ValidationResult<?> distributedValidationResult = distributedConfig.validate(aciService, indexingService, processorFactory);
 
-        verify(dah).validate(aciService, indexingService, processorFactory);
-        verify(dih).validate(aciService, indexingService, processorFactory);
+        verify(dah).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
+        verify(dih).validate(aciService, indexingService, processorFactory, ServerValidationOptions.DEFAULT);
 
         assertThat(distributedValidationResult, is(valid()));
 
@@ -243,6 +248,114 @@ public class DistributedConfigTest extends ConfigurationComponentTest<Distribute
         assertThat(validationDetails.getDihValidationResult(), is(nullValue()));
     }
 
+    @Test
+    public void testValidateWithDistributedTrueValidatesConcurrently() {
+        final ServerConfig dih = mock(ServerConfig.class);
+        final ServerConfig dah = mock(ServerConfig.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final ServerValidationOptions options = ServerValidationOptions.builder()
+            .executor(executor)
+            .build();
+
+        // each leg waits for the other to start, so this only succeeds if they run at the same time
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Answer<ValidationResult<?>> awaitOtherLeg = invocation -> {
+            latch.countDown();
+            return new ValidationResult<>(latch.await(5, TimeUnit.SECONDS), "ValidationResult");
+        };
+
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, options)).thenAnswer(awaitOtherLeg);
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, options)).thenAnswer(awaitOtherLeg);
+
+        final DistributedConfig distributedConfig = DistributedConfig.builder()
+            .distributed(true)
+            .dih(dih)
+            .dah(dah)
+            .build();
+
+        try {
+            final ValidationResult<?> validationResultDistributed = distributedConfig.validate(aciService, indexingService, processorFactory, options);
+
+            assertThat(validationResultDistributed, is(valid()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testValidateAsyncOnSingleThreadExecutor() throws Exception {
+        final ServerConfig dih = mock(ServerConfig.class);
+        final ServerConfig dah = mock(ServerConfig.class);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final ServerValidationOptions options = ServerValidationOptions.builder()
+            .executor(executor)
+            .build();
+
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, options)).thenReturn(new ValidationResult<>(true, "ValidationResult"));
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, options)).thenReturn(new ValidationResult<>(true, "ValidationResult"));
+
+        final DistributedConfig distributedConfig = DistributedConfig.builder()
+            .distributed(true)
+            .dih(dih)
+            .dah(dah)
+            .build();
+
+        try {
+            // the legs share the one thread with the validation, so this only completes if nothing waits for them
+            final ValidationResult<?> validationResultDistributed = distributedConfig.validateAsync(aciService, indexingService, processorFactory, options, executor, null).get();
+
+            assertThat(validationResultDistributed, is(valid()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testValidateWithDistributedTrueCancelsOtherLegOnFailure() throws InterruptedException {
+        final ServerConfig dih = mock(ServerConfig.class);
+        final ServerConfig dah = mock(ServerConfig.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final ServerValidationOptions options = ServerValidationOptions.builder()
+            .executor(executor)
+            .build();
+
+        final CountDownLatch dihStarted = new CountDownLatch(1);
+        final CountDownLatch dihInterrupted = new CountDownLatch(1);
+
+        Mockito.<ValidationResult<?>>when(dih.validate(aciService, indexingService, processorFactory, options)).thenAnswer(invocation -> {
+            dihStarted.countDown();
+
+            try {
+                new CountDownLatch(1).await();
+            } catch (final InterruptedException e) {
+                dihInterrupted.countDown();
+            }
+
+            return new ValidationResult<>(true, "ValidationResult");
+        });
+
+        Mockito.<ValidationResult<?>>when(dah.validate(aciService, indexingService, processorFactory, options)).thenAnswer(invocation -> {
+            dihStarted.await();
+            throw new IllegalStateException("DAH failed");
+        });
+
+        final DistributedConfig distributedConfig = DistributedConfig.builder()
+            .distributed(true)
+            .dih(dih)
+            .dah(dah)
+            .build();
+
+        try {
+            final ValidationResult<?> validationResultDistributed = distributedConfig.validate(aciService, indexingService, processorFactory, options);
+
+            assertThat(validationResultDistributed, is(not(valid())));
+            assertThat(validationResultDistributed.getData(), is(ServerConfig.Validation.FETCH_PORT_ERROR));
+            dihInterrupted.await();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     protected Class<DistributedConfig> getType() {
         return DistributedConfig.class;
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class HealthCheckSchedulerTest {
+    private ExecutorService executor;
+    private HealthCheckScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPublishesLatestResult() throws InterruptedException {
+        final CountDownLatch checked = new CountDownLatch(2);
+        scheduler = new HealthCheckScheduler(Duration.ofMillis(20), 0.5, 1, executor);
+
+        scheduler.register("content", () -> {
+            checked.countDown();
+            return new ValidationResult<>(true, null);
+        });
+
+        assertThat(scheduler.getStatus("content"), is(nullValue()));
+
+        scheduler.start();
+
+        assertTrue(checked.await(5, TimeUnit.SECONDS));
+        waitForStatus("content");
+        assertTrue(scheduler.getStatus("content").isHealthy());
+    }
+
+    @Test
+    public void testPublishesFailureAsConnectionError() throws InterruptedException {
+        scheduler = new HealthCheckScheduler(Duration.ofMillis(20), 0, 1, executor);
+
+        scheduler.register("content", () -> {
+            throw new IllegalStateException("Connection refused");
+        });
+
+        scheduler.start();
+        waitForStatus("content");
+
+        final HealthStatus status = scheduler.getStatus("content");
+        assertFalse(status.isHealthy());
+        assertThat(status.getResult().getData(), is(ServerConfig.Validation.CONNECTION_ERROR));
+    }
+
+    @Test
+    public void testBoundsConcurrentChecks() throws InterruptedException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch checked = new CountDownLatch(8);
+
+        scheduler = new HealthCheckScheduler(Duration.ofMillis(10), 0.5, 2, executor);
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.register("server" + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+                try {
+                    Thread.sleep(20);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    checked.countDown();
+                }
+
+                return new ValidationResult<>(true, null);
+            });
+        }
+
+        scheduler.start();
+
+        assertTrue(checked.await(5, TimeUnit.SECONDS));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void testUnregisterRemovesStatus() throws InterruptedException {
+        scheduler = new HealthCheckScheduler(Duration.ofMillis(20), 0, 1, executor);
+        scheduler.register("content", () -> new ValidationResult<>(true, null));
+        scheduler.start();
+        waitForStatus("content");
+
+        scheduler.unregister("content");
+
+        assertThat(scheduler.getStatus("content"), is(nullValue()));
+        assertTrue(scheduler.getSnapshot().isEmpty());
+    }
+
+    private void waitForStatus(final String name) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (scheduler.getStatus(name) == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -15,6 +15,7 @@
 package com.hp.autonomy.frontend.configuration.server;
 
 import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
 import com.autonomy.aci.client.services.Processor;
 import com.autonomy.aci.client.transport.AciParameter;
 import com.autonomy.aci.client.transport.AciServerDetails;
@@ -23,6 +24,8 @@ import com.autonomy.nonaci.indexing.IndexCommand;
 import com.autonomy.nonaci.indexing.IndexingException;
 import com.autonomy.nonaci.indexing.IndexingService;
 import com.hp.autonomy.frontend.configuration.ConfigurationComponentTest;
+import com.hp.autonomy.frontend.configuration.metrics.ConfigurationMetrics;
+import com.hp.autonomy.frontend.configuration.metrics.MetricTags;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.opentext.idol.types.marshalling.ProcessorFactory;
 import com.opentext.idol.types.responses.GetChildrenResponseData;
@@ -42,13 +45,21 @@ import org.springframework.boot.test.json.JsonContent;
 import org.springframework.boot.test.json.ObjectContent;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static com.hp.autonomy.frontend.configuration.server.IsValidMatcher.valid;
 import static com.hp.autonomy.frontend.configuration.server.ServerConfigTest.IsAciParameter.aciParameter;
 import static com.hp.autonomy.frontend.testing.matchers.SetContainingItems.isSetWithItems;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
@@ -56,6 +67,9 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Slf4j
@@ -112,6 +126,59 @@ public class ServerConfigTest extends ConfigurationComponentTest<ServerConfig> {
         assertThat(serverConfig.validate(aciService, null, processorFactory), is(valid()));
     }
 
+    @Test
+    public void testValidateRecordsPhaseTimingsAndOutcome() {
+        final ProductType productType = ProductType.SERVICECOORDINATOR;
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        )).thenReturn(mockGetVersionResponse(productType.name()));
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetChildren"))),
+                any()
+        )).thenReturn(mockGetChildrenResponse(6666, 6668));
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6668)),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenReturn(true);
+
+        final List<String> steps = new ArrayList<>();
+        final List<String> outcomes = new ArrayList<>();
+        final MetricTags expectedTags = new MetricTags("ServerConfig", productType.name(), "example.com");
+
+        final ConfigurationMetrics metrics = new ConfigurationMetrics() {
+            @Override
+            public void recordStep(final MetricTags tags, final String step, final long durationNanos) {
+                assertThat(tags, is(expectedTags));
+                steps.add(step);
+            }
+
+            @Override
+            public void recordOutcome(final MetricTags tags, final String outcome) {
+                assertThat(tags, is(expectedTags));
+                outcomes.add(outcome);
+            }
+        };
+
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .productType(Collections.singleton(productType))
+                .build();
+
+        final ServerValidationOptions options = ServerValidationOptions.builder().metrics(metrics).build();
+        assertThat(serverConfig.validate(aciService, null, processorFactory, options), is(valid()));
+
+        assertThat(steps, contains("VERSION_CHECK", "PORT_DISCOVERY", "SERVICE_PROBE"));
+        assertThat(outcomes, contains("VALID"));
+    }
+
     @Test
     public void testValidateWithIndexPort() {
         final ProductType productType = ProductType.AXE;
@@ -152,6 +219,196 @@ public class ServerConfigTest extends ConfigurationComponentTest<ServerConfig> {
         assertThat(serverConfig.validate(aciService, indexingService, processorFactory), is(valid()));
     }
 
+    @Test
+    public void testFetchServerDetailsWithParallelProtocolProbing() {
+        final ProductType productType = ProductType.SERVICECOORDINATOR;
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetChildren"))),
+                any()
+        )).thenReturn(mockGetChildrenResponse(6666, 6668));
+
+        Mockito.lenient().when(aciService.executeAction(
+                argThat(details -> details != null && details.getPort() == 6668 && details.getProtocol() == AciServerDetails.TransportProtocol.HTTP),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenThrow(new AciServiceException("Connection reset"));
+
+        when(aciService.executeAction(
+                argThat(details -> details != null && details.getPort() == 6668 && details.getProtocol() == AciServerDetails.TransportProtocol.HTTPS),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenReturn(true);
+
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .productType(Collections.singleton(productType))
+                .build();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final ServerValidationOptions options = ServerValidationOptions.builder()
+                    .protocolProber(ProtocolProber.parallel(executor))
+                    .build();
+
+            final ServerConfig fetched = serverConfig.fetchServerDetails(aciService, null, processorFactory, Collections.singleton(productType.name()), options);
+            assertThat(fetched.getServiceProtocol(), is(AciServerDetails.TransportProtocol.HTTPS));
+            assertThat(fetched.getServicePort(), is(6668));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testValidateHttpsServerTriesHttpFirst() {
+        final ProductType productType = ProductType.AXE;
+
+        final GetVersionResponseData getVersionResponseData = mockGetVersionResponse(productType.name());
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 7666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        )).thenReturn(getVersionResponseData);
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 7666)),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenReturn(mockGetStatusResponse(7666, 7667, 7668));
+
+        Mockito.lenient().when(aciService.executeAction(
+                argThat(details -> details != null && details.getPort() == 7668 && details.getProtocol() == AciServerDetails.TransportProtocol.HTTP),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenThrow(new AciServiceException("Connection reset"));
+
+        when(aciService.executeAction(
+                argThat(details -> details != null && details.getPort() == 7668 && details.getProtocol() == AciServerDetails.TransportProtocol.HTTPS),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenReturn(true);
+
+        final String indexErrorMessage = "Bad command or file name";
+        when(indexingService.executeCommand(
+                argThat(details -> details != null && details.getPort() == 7667 && details.getProtocol() == ServerDetails.TransportProtocol.HTTPS),
+                any(IndexCommand.class)
+        )).thenThrow(new IndexingException(indexErrorMessage));
+
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTPS)
+                .host("example.com")
+                .port(7666)
+                .productType(Collections.singleton(productType))
+                .indexErrorMessage(indexErrorMessage)
+                .build();
+
+        assertThat(serverConfig.validate(aciService, indexingService, processorFactory), is(valid()));
+
+        // GetVersion, GetStatus and the service port probes; the ACI port's protocol says nothing about the other
+        // ports, so HTTP is still tried first for each of them
+        verify(aciService, times(4)).executeAction(any(AciServerDetails.class), any(), any());
+        verify(indexingService, times(2)).executeCommand(any(ServerDetails.class), any(IndexCommand.class));
+    }
+
+    @Test
+    public void testValidatePreviouslyDiscoveredServerRoundTrips() {
+        final ProductType productType = ProductType.SERVICECOORDINATOR;
+
+        final GetVersionResponseData getVersionResponseData = mockGetVersionResponse(productType.name());
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        )).thenReturn(getVersionResponseData);
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetChildren"))),
+                any()
+        )).thenReturn(mockGetChildrenResponse(6666, 6668));
+
+        when(aciService.executeAction(
+                argThat(details -> details != null && details.getPort() == 6668 && details.getProtocol() == AciServerDetails.TransportProtocol.HTTPS),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenReturn(true);
+
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .serviceProtocol(AciServerDetails.TransportProtocol.HTTPS)
+                .servicePort(6668)
+                .productType(Collections.singleton(productType))
+                .build();
+
+        assertThat(serverConfig.validate(aciService, null, processorFactory), is(valid()));
+
+        // the previously discovered service protocol is tried first
+        verify(aciService, times(3)).executeAction(any(AciServerDetails.class), any(), any());
+    }
+
+    @Test
+    public void testValidateReportsPhaseWhichTimedOut() {
+        final GetVersionResponseData getVersionResponseData = mockGetVersionResponse(ProductType.AXE.name());
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        )).thenAnswer(invocation -> {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            return getVersionResponseData;
+        });
+
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .productType(Collections.singleton(ProductType.AXE))
+                .build();
+
+        final ExecutorService executor = Executors.newCachedThreadPool();
+
+        try {
+            final ServerValidationOptions options = ServerValidationOptions.builder()
+                    .phaseExecutor(executor)
+                    .validationTimeout(Duration.ofMillis(200))
+                    .build();
+
+            final ValidationResult<?> validationResult = serverConfig.validate(aciService, null, processorFactory, options);
+
+            assertThat(validationResult, is(not(valid())));
+            assertThat(validationResult.getData(), is(new ServerConfig.ValidationTimeout(ValidationPhase.VERSION_CHECK)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testValidateFailsPhaseWhenNoPhaseThreadIsFree() {
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .productType(Collections.singleton(ProductType.AXE))
+                .build();
+
+        final ServerValidationOptions options = ServerValidationOptions.builder()
+                .phaseExecutor(runnable -> {
+                    throw new RejectedExecutionException("Every phase thread is busy");
+                })
+                .validationTimeout(Duration.ofMinutes(1))
+                .build();
+
+        final ValidationResult<?> validationResult = serverConfig.validate(aciService, null, processorFactory, options);
+
+        assertThat(validationResult.getData(), is(new ServerConfig.ValidationTimeout(ValidationPhase.VERSION_CHECK)));
+        verify(aciService, never()).executeAction(any(AciServerDetails.class), any(), any());
+    }
+
     @Test
     public void testValidateWithIncorrectIndexErrorMessage() {
         final ProductType productType = ProductType.AXE;
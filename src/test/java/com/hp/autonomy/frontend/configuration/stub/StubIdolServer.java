@@ -0,0 +1,502 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeddable stand-in for an IDOL server, for tests and benchmarks which need to exercise the real transport and
+ * response parsing without a running IDOL.
+ * <p>
+ * The server listens on loopback on three ephemeral ports. The ACI and service ports answer GetVersion, GetStatus,
+ * GetChildren and LanguageSettings; GetStatus and GetChildren report the ports the stub is actually listening on. The
+ * index port answers commands starting with DRE with an index ID, and anything else with the configured index error
+ * message, which is what {@code ServerConfig} expects when it probes the index port.
+ * <p>
+ * Latency, ACI errors and HTTP error statuses can be configured per action, and each port can use HTTPS with a
+ * self-signed certificate for localhost (see {@link #sslContext()}).
+ */
+public class StubIdolServer implements Closeable {
+
+    /**
+     * The ports served by the stub
+     */
+    public enum Port {
+        ACI,
+        INDEX,
+        SERVICE
+    }
+
+    private static final String KEY_STORE = "/com/hp/autonomy/frontend/configuration/stub/stub-idol.p12";
+    private static final char[] KEY_STORE_PASSWORD = "changeit".toCharArray();
+
+    private final Builder settings;
+    private final Map<Port, HttpServer> servers = new EnumMap<>(Port.class);
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndexId = new AtomicInteger();
+    private final ExecutorService executor;
+
+    private StubIdolServer(final Builder settings) {
+        this.settings = settings;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "stub-idol-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        executor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return An SSLContext holding the stub's self-signed certificate, which both serves and trusts it
+     */
+    public static SSLContext sslContext() {
+        try (final InputStream inputStream = StubIdolServer.class.getResourceAsStream(KEY_STORE)) {
+            final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(inputStream, KEY_STORE_PASSWORD);
+
+            final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD);
+
+            final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(keyStore);
+
+            final SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+            return sslContext;
+        } catch (final IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to load the stub IDOL key store", e);
+        }
+    }
+
+    /**
+     * Starts listening on all ports
+     *
+     * @return This server
+     * @throws IOException If a port could not be opened
+     */
+    public StubIdolServer start() throws IOException {
+        for (final Port port : Port.values()) {
+            if (port == Port.INDEX && settings.indexErrorMessage == null) {
+                continue;
+            }
+
+            final HttpServer server = createServer(settings.https.contains(port));
+            server.createContext("/", port == Port.INDEX ? this::handleIndexCommand : this::handleAction);
+            server.setExecutor(executor);
+            server.start();
+            servers.put(port, server);
+        }
+
+        return this;
+    }
+
+    @Override
+    public void close() {
+        for (final HttpServer server : servers.values()) {
+            server.stop(0);
+        }
+
+        servers.clear();
+        executor.shutdownNow();
+    }
+
+    public String getHost() {
+        return "localhost";
+    }
+
+    public int getAciPort() {
+        return getPort(Port.ACI);
+    }
+
+    /**
+     * @return The index port, or null if the stub has no index port
+     */
+    public Integer getIndexPort() {
+        return servers.containsKey(Port.INDEX) ? getPort(Port.INDEX) : null;
+    }
+
+    public int getServicePort() {
+        return getPort(Port.SERVICE);
+    }
+
+    /**
+     * @param actionOrCommand An ACI action or index command, case insensitive
+     * @return The number of requests received for the action or command across all ports
+     */
+    public int getRequestCount(final String actionOrCommand) {
+        final AtomicInteger count = requestCounts.get(actionOrCommand.toLowerCase(Locale.ENGLISH));
+        return count == null ? 0 : count.get();
+    }
+
+    private int getPort(final Port port) {
+        final HttpServer server = servers.get(port);
+
+        if (server == null) {
+            throw new IllegalStateException("The " + port + " port is not listening");
+        }
+
+        return server.getAddress().getPort();
+    }
+
+    private HttpServer createServer(final boolean https) throws IOException {
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+        if (https) {
+            final HttpsServer server = HttpsServer.create(address, 0);
+            server.setHttpsConfigurator(new HttpsConfigurator(settings.sslContext == null ? sslContext() : settings.sslContext));
+            return server;
+        }
+
+        return HttpServer.create(address, 0);
+    }
+
+    private void handleAction(final HttpExchange exchange) throws IOException {
+        try {
+            final Map<String, String> parameters = parameters(exchange);
+            final String action = parameters.getOrDefault("action", "");
+
+            if (!prepare(exchange, action)) {
+                return;
+            }
+
+            final String error = settings.actionErrors.get(key(action));
+
+            if (error != null) {
+                send(exchange, 200, "text/xml", aciResponse(action, "ERROR", errorData(action, error)));
+                return;
+            }
+
+            final String responseData = responseData(action);
+
+            if (responseData == null) {
+                send(exchange, 200, "text/xml", aciResponse(action, "ERROR", errorData(action, "ERRORUNKNOWNACTION")));
+            } else {
+                send(exchange, 200, "text/xml", aciResponse(action, "SUCCESS", responseData));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleIndexCommand(final HttpExchange exchange) throws IOException {
+        try {
+            final String command = exchange.getRequestURI().getPath().substring(1);
+
+            // drain any posted documents
+            readBody(exchange);
+
+            if (!prepare(exchange, command)) {
+                return;
+            }
+
+            final String error = settings.actionErrors.get(key(command));
+
+            if (error == null && command.toUpperCase(Locale.ENGLISH).startsWith("DRE")) {
+                send(exchange, 200, "text/plain", "INDEXID=" + nextIndexId.incrementAndGet());
+            } else {
+                send(exchange, 200, "text/plain", error == null ? settings.indexErrorMessage : error);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // counts the request and applies the configured latency and HTTP status; returns false if a response was sent
+    private boolean prepare(final HttpExchange exchange, final String actionOrCommand) throws IOException {
+        final String key = key(actionOrCommand);
+        requestCounts.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+
+        final Duration latency = settings.actionLatency.getOrDefault(key, settings.latency);
+
+        if (!latency.isZero()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        final Integer status = settings.actionStatuses.get(key);
+
+        if (status != null) {
+            send(exchange, status, "text/plain", "Stub IDOL returned HTTP " + status);
+            return false;
+        }
+
+        return true;
+    }
+
+    private String responseData(final String action) {
+        switch (key(action)) {
+            case "getversion":
+                return element("version", settings.version)
+                        + element("producttypecsv", settings.productTypeCsv);
+            case "getstatus":
+                final StringBuilder builder = new StringBuilder()
+                        .append(element("aciport", getAciPort()))
+                        .append(element("serviceport", getServicePort()));
+
+                if (getIndexPort() != null) {
+                    builder.append(element("indexport", getIndexPort()));
+                }
+
+                if (!settings.securityTypes.isEmpty()) {
+                    builder.append("<securitytypes>");
+
+                    for (final String securityType : settings.securityTypes) {
+                        builder.append("<securitytype>").append(element("name", securityType)).append("</securitytype>");
+                    }
+
+                    builder.append("</securitytypes>");
+                }
+
+                return builder.toString();
+            case "getchildren":
+                return element("port", getAciPort())
+                        + element("serviceport", getServicePort());
+            case "languagesettings":
+                return "<autn:defaultlanguagetype>englishUTF8</autn:defaultlanguagetype>"
+                        + "<autn:language><autn:name>ENGLISH</autn:name><autn:encoding>UTF8</autn:encoding></autn:language>";
+            default:
+                return null;
+        }
+    }
+
+    private static String aciResponse(final String action, final String response, final String responseData) {
+        return "<?xml version='1.0' encoding='UTF-8' ?>"
+                + "<autnresponse xmlns:autn='http://schemas.autonomy.com/aci/'>"
+                + element("action", action.toUpperCase(Locale.ENGLISH))
+                + element("response", response)
+                + "<responsedata>" + responseData + "</responsedata>"
+                + "</autnresponse>";
+    }
+
+    private static String errorData(final String action, final String errorCode) {
+        return "<error>"
+                + element("errorid", "STUB-" + action.toUpperCase(Locale.ENGLISH))
+                + element("rawerrorid", "0x0")
+                + element("errorstring", errorCode)
+                + element("errordescription", "Stub IDOL error for action " + action)
+                + element("errorcode", errorCode)
+                + element("errortime", "01 Jan 70 00:00:00")
+                + "</error>";
+    }
+
+    private static String element(final String name, final Object value) {
+        return '<' + name + '>' + value + "</" + name + '>';
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String contentType, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parameters(final HttpExchange exchange) throws IOException {
+        final Map<String, String> parameters = new HashMap<>();
+        final String path = exchange.getRequestURI().getRawPath();
+
+        // IDOL also accepts parameters in the path, as in /action=GetStatus
+        if (path.contains("=")) {
+            addParameters(parameters, path.substring(1));
+        }
+
+        addParameters(parameters, exchange.getRequestURI().getRawQuery());
+        addParameters(parameters, readBody(exchange));
+        return parameters;
+    }
+
+    private static void addParameters(final Map<String, String> parameters, final String encoded) throws UnsupportedEncodingException {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+
+        for (final String pair : encoded.split("&")) {
+            final int equals = pair.indexOf('=');
+            final String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), "UTF-8");
+            final String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+            parameters.put(name.toLowerCase(Locale.ENGLISH), value);
+        }
+    }
+
+    private static String readBody(final HttpExchange exchange) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        try (final InputStream inputStream = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String key(final String actionOrCommand) {
+        return actionOrCommand.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Configures a {@link StubIdolServer}
+     */
+    public static class Builder {
+        private String productTypeCsv = "AXE";
+        private String version = "25.1.0";
+        private String indexErrorMessage;
+        private List<String> securityTypes = Collections.emptyList();
+        private Duration latency = Duration.ZERO;
+        private final Map<String, Duration> actionLatency = new HashMap<>();
+        private final Map<String, String> actionErrors = new HashMap<>();
+        private final Map<String, Integer> actionStatuses = new HashMap<>();
+        private final List<Port> https = new ArrayList<>();
+        private SSLContext sslContext;
+
+        private Builder() {
+        }
+
+        /**
+         * @param productTypeCsv The product types reported by GetVersion, defaults to AXE
+         */
+        public Builder productTypeCsv(final String productTypeCsv) {
+            this.productTypeCsv = productTypeCsv;
+            return this;
+        }
+
+        public Builder version(final String version) {
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * @param indexErrorMessage The response to unknown index commands. If null, the stub has no index port.
+         */
+        public Builder indexErrorMessage(final String indexErrorMessage) {
+            this.indexErrorMessage = indexErrorMessage;
+            return this;
+        }
+
+        /**
+         * @param securityTypes Security types reported by GetStatus, as a Community server would
+         */
+        public Builder securityTypes(final String... securityTypes) {
+            this.securityTypes = Arrays.asList(securityTypes);
+            return this;
+        }
+
+        /**
+         * @param latency Delay before responding to every request
+         */
+        public Builder latency(final Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * @param actionOrCommand The ACI action or index command to delay
+         * @param latency         Delay before responding, replacing the default latency
+         */
+        public Builder latency(final String actionOrCommand, final Duration latency) {
+            actionLatency.put(key(actionOrCommand), latency);
+            return this;
+        }
+
+        /**
+         * @param actionOrCommand The ACI action or index command which should fail
+         * @param errorCode       The error code of the ACI error response, or the body of the index response
+         */
+        public Builder error(final String actionOrCommand, final String errorCode) {
+            actionErrors.put(key(actionOrCommand), errorCode);
+            return this;
+        }
+
+        /**
+         * @param actionOrCommand The ACI action or index command which should fail
+         * @param status          The HTTP status to respond with
+         */
+        public Builder httpStatus(final String actionOrCommand, final int status) {
+            actionStatuses.put(key(actionOrCommand), status);
+            return this;
+        }
+
+        /**
+         * @param ports The ports which should use HTTPS instead of HTTP
+         */
+        public Builder https(final Port... ports) {
+            https.addAll(Arrays.asList(ports));
+            return this;
+        }
+
+        /**
+         * @param sslContext Replaces the default self-signed certificate on HTTPS ports
+         */
+        public Builder sslContext(final SSLContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        public StubIdolServer build() {
+            return new StubIdolServer(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2015 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.configuration.stub;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class StubIdolServerTest {
+    private StubIdolServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testGetStatusReportsListeningPorts() throws IOException {
+        server = StubIdolServer.builder().indexErrorMessage("IndexError").build().start();
+
+        final String response = get("http://localhost:" + server.getAciPort() + "/action=GetStatus");
+
+        assertThat(response, containsString("<response>SUCCESS</response>"));
+        assertThat(response, containsString("<aciport>" + server.getAciPort() + "</aciport>"));
+        assertThat(response, containsString("<indexport>" + server.getIndexPort() + "</indexport>"));
+        assertThat(response, containsString("<serviceport>" + server.getServicePort() + "</serviceport>"));
+        assertThat(server.getRequestCount("GetStatus"), is(1));
+    }
+
+    @Test
+    public void testGetVersionReportsProductTypes() throws IOException {
+        server = StubIdolServer.builder().productTypeCsv("DAH,QMS").build().start();
+
+        final String response = get("http://localhost:" + server.getAciPort() + "/?action=GetVersion");
+
+        assertThat(response, containsString("<producttypecsv>DAH,QMS</producttypecsv>"));
+        assertThat(server.getIndexPort(), is(nullValue()));
+    }
+
+    @Test
+    public void testConfiguredErrorReturnsAciError() throws IOException {
+        server = StubIdolServer.builder().error("LanguageSettings", "ERRORNOTIMPLEMENTED").build().start();
+
+        final String response = get("http://localhost:" + server.getAciPort() + "/?action=LanguageSettings");
+
+        assertThat(response, containsString("<response>ERROR</response>"));
+        assertThat(response, containsString("<errorcode>ERRORNOTIMPLEMENTED</errorcode>"));
+    }
+
+    @Test
+    public void testConfiguredHttpStatus() throws IOException {
+        server = StubIdolServer.builder().httpStatus("GetChildren", 503).build().start();
+
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getAciPort() + "/?action=GetChildren").openConnection();
+
+        assertThat(connection.getResponseCode(), is(503));
+    }
+
+    @Test
+    public void testIndexPortAnswersCommands() throws IOException {
+        server = StubIdolServer.builder().indexErrorMessage("IndexError").build().start();
+
+        assertThat(get("http://localhost:" + server.getIndexPort() + "/DREADDDATA?DREDbName=News"), is("INDEXID=1"));
+        assertThat(get("http://localhost:" + server.getIndexPort() + "/test"), is("IndexError"));
+    }
+
+    @Test
+    public void testLatencyDelaysResponse() throws IOException {
+        server = StubIdolServer.builder().latency("GetVersion", Duration.ofMillis(100)).build().start();
+
+        final long start = System.nanoTime();
+        get("http://localhost:" + server.getAciPort() + "/?action=GetVersion");
+
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(Duration.ofMillis(100).toNanos()));
+    }
+
+    @Test
+    public void testHttpsServicePort() throws IOException {
+        server = StubIdolServer.builder().https(StubIdolServer.Port.SERVICE).build().start();
+
+        final HttpsURLConnection connection = (HttpsURLConnection) new URL("https://localhost:" + server.getServicePort() + "/action=GetStatus").openConnection();
+        connection.setSSLSocketFactory(StubIdolServer.sslContext().getSocketFactory());
+
+        assertThat(read(connection.getInputStream()), containsString("<response>SUCCESS</response>"));
+    }
+
+    private static String get(final String url) throws IOException {
+        return read(new URL(url).openStream());
+    }
+
+    private static String read(final InputStream inputStream) throws IOException {
+        try (final InputStream stream = inputStream) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = stream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}